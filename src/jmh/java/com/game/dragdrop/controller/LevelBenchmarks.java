@@ -0,0 +1,80 @@
+package com.game.dragdrop.controller;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.game.dragdrop.BenchmarkApplication;
+import com.game.dragdrop.model.GameLevel;
+import com.game.dragdrop.repository.LevelRepository;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Level list retrieval plus JSON encoding, as done for GET /api/game/levels:
+ * once for a room (level cache) and once for all levels (database).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LevelBenchmarks {
+    private static final long ROOM_ID = 1L;
+    private static final int ROOMS = 2;
+    private static final int LEVELS_PER_ROOM = 20;
+
+    private ConfigurableApplicationContext context;
+    private GameController gameController;
+    private JsonMapper jsonMapper;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        gameController = context.getBean(GameController.class);
+        jsonMapper = context.getBean(JsonMapper.class);
+
+        LevelRepository levelRepository = context.getBean(LevelRepository.class);
+        for (long roomId = ROOM_ID; roomId < ROOM_ID + ROOMS; roomId++) {
+            for (int i = 1; i <= LEVELS_PER_ROOM; i++) {
+                GameLevel level = new GameLevel();
+                level.setImageUrl("/uploads/room" + roomId + "/level" + i + ".png");
+                level.setAnswer("ANSWER" + i);
+                level.setHint("Hint for level " + i);
+                level.setLevelOrder(i);
+                level.setTimeLimit(60);
+                level.setRoomId(roomId);
+                level.setOptions(GameLevel.optionsFor(level.getAnswer()));
+                levelRepository.save(level);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] roomLevels() {
+        // Already encoded; only the options are shuffled
+        return gameController.getRoomLevels(ROOM_ID).getBody();
+    }
+
+    @Benchmark
+    public byte[] allLevels() {
+        return jsonMapper.writeValueAsBytes(gameController.getAllLevels(null, null).getBody());
+    }
+}
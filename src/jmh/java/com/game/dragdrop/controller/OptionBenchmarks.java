@@ -0,0 +1,70 @@
+package com.game.dragdrop.controller;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.game.dragdrop.model.GameLevel;
+import com.game.dragdrop.service.EncodedLevels;
+import com.game.dragdrop.service.LevelView;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Answer options: splitting an answer into tiles when a level is saved, and
+ * the per-response shuffled copy handed to players, as a view object and as
+ * pre-encoded JSON.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class OptionBenchmarks {
+
+    @Param({ "CAT", "ELEPHANT", "INTERNATIONALIZATION" })
+    private String answer;
+
+    private GameLevel level;
+    private EncodedLevels encoded;
+
+    @Setup
+    public void setUp() {
+        level = new GameLevel();
+        level.setId(1L);
+        level.setImageUrl("/uploads/level.png");
+        level.setAnswer(answer);
+        level.setLevelOrder(1);
+        level.setTimeLimit(60);
+        level.setOptions(GameLevel.optionsFor(answer));
+        encoded = EncodedLevels.encode(JsonMapper.builder().build(), List.of(level));
+    }
+
+    @Benchmark
+    public List<String> generateOptions() {
+        return GameLevel.optionsFor(answer);
+    }
+
+    @Benchmark
+    public LevelView shuffleOptions() {
+        return GameController.withShuffledOptions(level);
+    }
+
+    // The cached path: shuffled straight into the pre-encoded JSON
+    @Benchmark
+    public byte[] shuffleEncoded() {
+        return encoded.shuffled();
+    }
+}
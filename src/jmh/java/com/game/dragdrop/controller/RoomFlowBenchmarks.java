@@ -0,0 +1,76 @@
+package com.game.dragdrop.controller;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.game.dragdrop.BenchmarkApplication;
+
+/**
+ * A player joining a room and finishing it, through RoomController against
+ * the embedded database (the join inserts the player; the finish is written
+ * back by the registry's scheduled flush, which runs alongside as in
+ * production). Each thread plays in its own room and moves on to a new one
+ * every PLAYERS_PER_ROOM players, so room creation is amortized in.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RoomFlowBenchmarks {
+    private static final int PLAYERS_PER_ROOM = 50;
+
+    @State(Scope.Benchmark)
+    public static class App {
+        ConfigurableApplicationContext context;
+        RoomController roomController;
+
+        @Setup
+        public void setUp() {
+            context = BenchmarkApplication.start();
+            roomController = context.getBean(RoomController.class);
+        }
+
+        @TearDown
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Room {
+        Long roomId;
+        int players;
+
+        // A host that never finishes keeps the room open for the next players
+        void open(RoomController roomController) {
+            roomId = roomController.createRoom("benchmark", null).getId();
+            roomController.joinRoom(roomId, "host");
+            players = 0;
+        }
+    }
+
+    @Benchmark
+    public Object joinAndFinish(App app, Room room) {
+        if (room.roomId == null || room.players == PLAYERS_PER_ROOM) {
+            room.open(app.roomController);
+        }
+        Map<String, Object> joined = app.roomController.joinRoom(room.roomId, "player-" + room.players++).getBody();
+        Long playerId = (Long) joined.get("playerId");
+        app.roomController.finishGame(room.roomId, playerId);
+        return playerId;
+    }
+}
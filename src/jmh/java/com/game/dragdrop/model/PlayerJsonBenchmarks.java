@@ -0,0 +1,55 @@
+package com.game.dragdrop.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * JSON encoding of a room's player list, as returned by
+ * GET /api/rooms/{id}/players.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PlayerJsonBenchmarks {
+
+    @Param({ "10", "100", "1000" })
+    private int players;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private List<GamePlayer> playerList;
+
+    @Setup
+    public void setUp() {
+        playerList = new ArrayList<>(players);
+        for (int i = 0; i < players; i++) {
+            GamePlayer player = new GamePlayer("player-" + i, 1L);
+            player.setId((long) i + 1);
+            player.setScore(i * 10);
+            player.setFinished(i % 2 == 0);
+            playerList.add(player);
+        }
+    }
+
+    @Benchmark
+    public byte[] encodePlayers() {
+        return jsonMapper.writeValueAsBytes(playerList);
+    }
+}
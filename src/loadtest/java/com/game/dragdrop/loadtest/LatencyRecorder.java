@@ -0,0 +1,82 @@
+package com.game.dragdrop.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-endpoint latency samples and error counts. Every sample is kept, so the
+ * percentiles are exact; a run of a few hundred thousand requests needs only
+ * a few MB.
+ */
+class LatencyRecorder {
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    void record(String endpoint, long nanos, boolean error) {
+        endpoints.computeIfAbsent(endpoint, e -> new Endpoint()).add(nanos, error);
+    }
+
+    long totalRequests() {
+        return endpoints.values().stream().mapToLong(Endpoint::count).sum();
+    }
+
+    long totalErrors() {
+        return endpoints.values().stream().mapToLong(Endpoint::errors).sum();
+    }
+
+    // Summary per endpoint, in the order endpoints were first hit
+    Map<String, Summary> summarize(double elapsedSeconds) {
+        Map<String, Summary> summaries = new LinkedHashMap<>();
+        endpoints.entrySet().stream()
+                .sorted(Map.Entry.comparingByValue((a, b) -> Long.compare(a.firstSeen, b.firstSeen)))
+                .forEach(entry -> summaries.put(entry.getKey(), entry.getValue().summarize(elapsedSeconds)));
+        return summaries;
+    }
+
+    record Summary(long count, long errors, double errorRate, double throughput,
+            double p50Ms, double p90Ms, double p99Ms, double maxMs) {
+    }
+
+    private static final class Endpoint {
+        final long firstSeen = System.nanoTime();
+        private long[] samples = new long[1024];
+        private int size;
+        private long errors;
+
+        synchronized void add(long nanos, boolean error) {
+            if (size == samples.length) {
+                samples = Arrays.copyOf(samples, size * 2);
+            }
+            samples[size++] = nanos;
+            if (error) {
+                errors++;
+            }
+        }
+
+        synchronized long count() {
+            return size;
+        }
+
+        synchronized long errors() {
+            return errors;
+        }
+
+        synchronized Summary summarize(double elapsedSeconds) {
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            return new Summary(size, errors, size == 0 ? 0 : (double) errors / size, size / elapsedSeconds,
+                    percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99),
+                    sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6);
+        }
+
+        // Nearest-rank percentile, in milliseconds
+        private static double percentile(long[] sorted, int percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+            return sorted[Math.max(0, rank - 1)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package com.game.dragdrop.loadtest;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.server.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.game.dragdrop.DragAndDropGameApp;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * End-to-end load generator. Simulates classrooms through the real HTTP API:
+ * a host creates a room and its levels, players join and poll the status,
+ * the host starts the game, every player fetches the level bundle, plays
+ * through the levels (start and answer each one) and finishes. Each player is a virtual thread.
+ *
+ * By default the app is started in-process on a random port with the
+ * embedded H2 database of the test profile; --target=http://host:port
+ * drives an already running instance instead. Options:
+ *
+ *   --rooms=20 --players=30 --levels=5 --think-ms=500 --ramp-up-ms=5000
+ *
+ * Any other --key=value argument is passed on to the embedded app (e.g.
+ * --spring.threads.virtual.enabled=true). Latency percentiles, throughput
+ * and error rates per endpoint are printed and written as JSON to
+ * target/loadtest-result.json.
+ */
+public class LoadTest {
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    // Players give up waiting for the host after this long
+    private static final Duration START_TIMEOUT = Duration.ofMinutes(5);
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final LatencyRecorder recorder = new LatencyRecorder();
+    private final AtomicInteger finishedPlayers = new AtomicInteger();
+    private final AtomicInteger failedPlayers = new AtomicInteger();
+
+    private final String baseUrl;
+    private final int rooms;
+    private final int playersPerRoom;
+    private final int levelsPerRoom;
+    private final long thinkMs;
+    private final long rampUpMs;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient httpClient;
+    private final byte[] levelImage;
+
+    LoadTest(String baseUrl, Map<String, String> options) throws Exception {
+        this.baseUrl = baseUrl;
+        this.rooms = Integer.parseInt(options.getOrDefault("rooms", "20"));
+        this.playersPerRoom = Integer.parseInt(options.getOrDefault("players", "30"));
+        this.levelsPerRoom = Integer.parseInt(options.getOrDefault("levels", "5"));
+        this.thinkMs = Long.parseLong(options.getOrDefault("think-ms", "500"));
+        this.rampUpMs = Long.parseLong(options.getOrDefault("ramp-up-ms", "5000"));
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(REQUEST_TIMEOUT)
+                .executor(executor)
+                .build();
+        this.levelImage = sampleImage();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        ConfigurableApplicationContext context = null;
+        String baseUrl = options.get("target");
+        if (baseUrl == null) {
+            context = new SpringApplicationBuilder(DragAndDropGameApp.class)
+                    .properties("server.port=0",
+                            "spring.jpa.show-sql=false",
+                            "spring.jpa.properties.hibernate.generate_statistics=false",
+                            "upload.dir=target/loadtest-uploads",
+                            "spring.main.banner-mode=off",
+                            "logging.level.root=WARN")
+                    .run(args);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            baseUrl = "http://localhost:" + port;
+        }
+
+        try {
+            LoadTest loadTest = new LoadTest(baseUrl.replaceAll("/+$", ""), options);
+            loadTest.run(Path.of(options.getOrDefault("output", "target/loadtest-result.json")));
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    void run(Path output) throws Exception {
+        System.out.printf("Load test against %s: %d rooms x %d players, %d levels, think %d ms, ramp-up %d ms%n",
+                baseUrl, rooms, playersPerRoom, levelsPerRoom, thinkMs, rampUpMs);
+
+        long start = System.nanoTime();
+        List<Future<?>> roomRuns = new ArrayList<>();
+        for (int r = 0; r < rooms; r++) {
+            long delay = rooms > 1 ? rampUpMs * r / (rooms - 1) : 0;
+            int roomIndex = r;
+            roomRuns.add(executor.submit(() -> {
+                Thread.sleep(delay);
+                runRoom(roomIndex);
+                return null;
+            }));
+        }
+        for (Future<?> roomRun : roomRuns) {
+            try {
+                roomRun.get();
+            } catch (Exception e) {
+                System.err.println("Room failed: " + e.getCause());
+            }
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        executor.shutdown();
+
+        report(elapsedSeconds, output);
+    }
+
+    // The host's side of one classroom; the players run alongside on their own threads
+    private void runRoom(int roomIndex) throws Exception {
+        JsonNode room = send("POST /api/rooms/create",
+                post("/api/rooms/create?name=load-" + roomIndex + "-" + UUID.randomUUID()));
+        if (room == null) {
+            failedPlayers.addAndGet(playersPerRoom);
+            return;
+        }
+        long roomId = room.get("id").asLong();
+
+        for (int l = 1; l <= levelsPerRoom; l++) {
+            send("POST /api/management/level", uploadLevel(roomId, l));
+        }
+
+        CountDownLatch joined = new CountDownLatch(playersPerRoom);
+        List<Future<?>> players = new ArrayList<>();
+        for (int p = 0; p < playersPerRoom; p++) {
+            String name = "player-" + p;
+            players.add(executor.submit(() -> runPlayer(roomId, name, joined)));
+        }
+
+        joined.await();
+        think();
+        send("POST /api/rooms/{id}/start", post("/api/rooms/" + roomId + "/start"));
+
+        for (Future<?> player : players) {
+            player.get();
+        }
+    }
+
+    private void runPlayer(long roomId, String name, CountDownLatch joined) {
+        boolean finished = false;
+        boolean counted = false;
+        try {
+            think();
+            JsonNode join = send("POST /api/rooms/{id}/join",
+                    post("/api/rooms/" + roomId + "/join?playerName=" + name));
+            joined.countDown();
+            counted = true;
+            if (join == null || !join.has("playerId")) {
+                return;
+            }
+            long playerId = join.get("playerId").asLong();
+
+            // Poll like the client's fallback path until the host starts the game
+            long deadline = System.nanoTime() + START_TIMEOUT.toNanos();
+            while (true) {
+                JsonNode status = send("GET /api/rooms/{id}/status", get("/api/rooms/" + roomId + "/status"));
+                if (status != null && !"WAITING".equals(status.path("status").asString())) {
+                    break;
+                }
+                if (System.nanoTime() > deadline) {
+                    return;
+                }
+                think();
+            }
+
+            JsonNode bundle = send("GET /api/game/rooms/{id}/bundle", get("/api/game/rooms/" + roomId + "/bundle"));
+            if (bundle == null) {
+                return;
+            }
+            // Each level runs on the server clock; the score comes from the answers it accepted
+            JsonNode levels = bundle.path("levels");
+            for (int l = 0; l < levels.size(); l++) {
+                String level = "/api/rooms/" + roomId + "/levels/" + l;
+                send("POST /api/rooms/{id}/levels/{level}/start", post(level + "/start?playerId=" + playerId));
+                think();
+                // Players are never sent answers; these are the ones uploadLevel gave the levels
+                String answer = "ANSWER" + levels.get(l).path("levelOrder").asInt();
+                if (ThreadLocalRandom.current().nextInt(5) == 0) {
+                    answer = "WRONG";
+                }
+                send("POST /api/rooms/{id}/levels/{level}/answer", post(level + "/answer?playerId=" + playerId
+                        + "&answer=" + URLEncoder.encode(answer, StandardCharsets.UTF_8)));
+            }
+
+            finished = send("POST /api/rooms/{id}/finish",
+                    post("/api/rooms/" + roomId + "/finish?playerId=" + playerId)) != null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (!counted) {
+                joined.countDown(); // never leave the host waiting
+            }
+            (finished ? finishedPlayers : failedPlayers).incrementAndGet();
+        }
+    }
+
+    // Sends and records one request; returns the parsed body, or null on any failure
+    private JsonNode send(String endpoint, HttpRequest request) {
+        long start = System.nanoTime();
+        boolean error = true;
+        try {
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            error = response.statusCode() >= 400;
+            if (error) {
+                return null;
+            }
+            byte[] body = response.body();
+            return body.length == 0 ? jsonMapper.nullNode() : jsonMapper.readTree(body);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            return null;
+        } finally {
+            recorder.record(endpoint, System.nanoTime() - start, error);
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT).GET().build();
+    }
+
+    private HttpRequest post(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT)
+                .POST(HttpRequest.BodyPublishers.noBody()).build();
+    }
+
+    // Same multipart form the admin page sends
+    private HttpRequest uploadLevel(long roomId, int levelOrder) {
+        String boundary = "----load" + UUID.randomUUID();
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("answer", "ANSWER" + levelOrder);
+        fields.put("hint", "Hint " + levelOrder);
+        fields.put("levelOrder", String.valueOf(levelOrder));
+        fields.put("roomId", String.valueOf(roomId));
+        fields.put("timeLimit", "60");
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            body.writeBytes(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"" + field.getKey()
+                    + "\"\r\n\r\n" + field.getValue() + "\r\n").getBytes(StandardCharsets.UTF_8));
+        }
+        body.writeBytes(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"image\"; filename=\"level.png\""
+                + "\r\nContent-Type: image/png\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(levelImage);
+        body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/management/level"))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+    }
+
+    // Think time with +/-50% jitter so players don't move in lockstep
+    private void think() throws InterruptedException {
+        if (thinkMs > 0) {
+            Thread.sleep(thinkMs / 2 + ThreadLocalRandom.current().nextLong(thinkMs + 1));
+        }
+    }
+
+    private void report(double elapsedSeconds, Path output) throws Exception {
+        Map<String, LatencyRecorder.Summary> summaries = recorder.summarize(elapsedSeconds);
+        long requests = recorder.totalRequests();
+        long errors = recorder.totalErrors();
+
+        System.out.printf("%n%-32s %8s %7s %8s %9s %9s %9s %9s %9s%n", "endpoint", "count", "errors", "err%",
+                "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        summaries.forEach((endpoint, s) -> System.out.printf("%-32s %8d %7d %7.2f%% %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                endpoint, s.count(), s.errors(), s.errorRate() * 100, s.throughput(), s.p50Ms(), s.p90Ms(),
+                s.p99Ms(), s.maxMs()));
+        System.out.printf("%nDuration %.1f s, %d requests (%.1f req/s), %d errors (%.2f%%), "
+                + "%d players finished, %d failed%n", elapsedSeconds, requests, requests / elapsedSeconds, errors,
+                requests == 0 ? 0 : 100.0 * errors / requests, finishedPlayers.get(), failedPlayers.get());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("rooms", rooms);
+        parameters.put("playersPerRoom", playersPerRoom);
+        parameters.put("levelsPerRoom", levelsPerRoom);
+        parameters.put("thinkMs", thinkMs);
+        parameters.put("rampUpMs", rampUpMs);
+        result.put("target", baseUrl);
+        result.put("parameters", parameters);
+        result.put("durationSeconds", elapsedSeconds);
+        result.put("requests", requests);
+        result.put("errors", errors);
+        result.put("throughput", requests / elapsedSeconds);
+        result.put("playersFinished", finishedPlayers.get());
+        result.put("playersFailed", failedPlayers.get());
+        result.put("endpoints", summaries);
+
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        jsonMapper.writerWithDefaultPrettyPrinter().writeValue(output.toFile(), result);
+        System.out.println("Results written to " + output.toAbsolutePath());
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int eq = arg.indexOf('=');
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return options;
+    }
+
+    // A small opaque image, wide enough to go through the variant pipeline
+    private static byte[] sampleImage() throws Exception {
+        BufferedImage image = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(new Color(0x3b82f6));
+            g.fillRect(0, 0, 800, 600);
+            g.setColor(Color.WHITE);
+            g.fillOval(200, 100, 400, 400);
+        } finally {
+            g.dispose();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
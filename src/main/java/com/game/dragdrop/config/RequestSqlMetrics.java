@@ -0,0 +1,107 @@
+package com.game.dragdrop.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.SessionEventListener;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * SQL statements executed while serving one request, and the time spent in
+ * them. Hibernate reports every JDBC execution to a SessionListener, which
+ * adds it to the tally of the current request thread; the interceptor
+ * publishes the tally per endpoint as db.request.statements and
+ * db.request.time. Work outside requests (scheduled flush, background
+ * pipelines) has no tally and is not counted.
+ */
+public class RequestSqlMetrics implements AsyncHandlerInterceptor {
+    private static final ThreadLocal<Tally> CURRENT = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+
+    public RequestSqlMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        CURRENT.set(new Tally());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        Tally tally = CURRENT.get();
+        CURRENT.remove();
+        if (tally == null) {
+            return;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        DistributionSummary.builder("db.request.statements")
+                .description("SQL statements executed per request")
+                .tag("uri", uri)
+                .tag("method", request.getMethod())
+                .register(meterRegistry)
+                .record(tally.statements);
+        Timer.builder("db.request.time")
+                .description("Time spent executing SQL per request")
+                .tag("uri", uri)
+                .tag("method", request.getMethod())
+                .register(meterRegistry)
+                .record(tally.nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Streaming responses (SSE) leave the thread here; don't let the tally leak to the next request
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+            Object handler) {
+        CURRENT.remove();
+    }
+
+    private static final class Tally {
+        int statements;
+        long nanos;
+    }
+
+    // Created by Hibernate for every session (hibernate.session.events.auto)
+    public static class SessionListener implements SessionEventListener {
+        private long started;
+
+        @Override
+        public void jdbcExecuteStatementStart() {
+            started = System.nanoTime();
+        }
+
+        @Override
+        public void jdbcExecuteStatementEnd() {
+            count();
+        }
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            started = System.nanoTime();
+        }
+
+        // A batch is one round trip, counted as one statement
+        @Override
+        public void jdbcExecuteBatchEnd() {
+            count();
+        }
+
+        private void count() {
+            Tally tally = CURRENT.get();
+            if (tally != null) {
+                tally.statements++;
+                tally.nanos += System.nanoTime() - started;
+            }
+        }
+    }
+}
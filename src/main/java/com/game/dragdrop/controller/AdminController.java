@@ -1,14 +1,26 @@
 package com.game.dragdrop.controller;
 
+import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.game.dragdrop.model.GameLevel;
+import com.game.dragdrop.model.LevelSet;
 import com.game.dragdrop.repository.LevelRepository;
+import com.game.dragdrop.service.EventJournal;
+import com.game.dragdrop.service.KeysetQueryService;
+import com.game.dragdrop.service.LevelCatalogService;
+import com.game.dragdrop.service.LevelImportService;
+import com.game.dragdrop.service.LevelSetService;
+import com.game.dragdrop.service.LevelStatsService;
 import com.game.dragdrop.service.StorageService;
 
 @RestController
@@ -18,6 +30,18 @@ public class AdminController {
     private LevelRepository levelRepository;
     @Autowired
     private StorageService storageService;
+    @Autowired
+    private LevelCatalogService levelCatalogService;
+    @Autowired
+    private KeysetQueryService keysetQueryService;
+    @Autowired
+    private LevelImportService levelImportService;
+    @Autowired
+    private LevelSetService levelSetService;
+    @Autowired
+    private EventJournal eventJournal;
+    @Autowired
+    private LevelStatsService levelStatsService;
 
     @PostMapping("/level")
     public GameLevel createLevel(@RequestParam("image") MultipartFile file, @RequestParam("answer") String answer,
@@ -30,17 +54,37 @@ public class AdminController {
         level.setAnswer(answer);
         level.setHint(hint);
         level.setLevelOrder(levelOrder);
-        level.setRoomId(roomId);
         level.setTimeLimit(timeLimit != null ? timeLimit : 60); // Default 60s
-        level.setOptions(answer.chars().mapToObj(c -> String.valueOf((char) c)).collect(Collectors.toList()));
-        return levelRepository.save(level);
+        level.setOptions(GameLevel.optionsFor(answer));
+        // A room playing a shared set gets its own copy of the set, in the same transaction
+        return levelSetService.addLevels(roomId, List.of(level)).get(0);
+    }
+
+    // A whole set of levels in one request: zip of images plus manifest.json, imported in the background
+    @PostMapping("/level/import")
+    public ResponseEntity<?> importLevels(@RequestParam("archive") MultipartFile archive,
+            @RequestParam(value = "roomId", required = false) Long roomId) throws IOException {
+        try {
+            return ResponseEntity.accepted().body(levelImportService.submit(archive, roomId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/level/import/{jobId}")
+    public LevelImportService.Progress getImportProgress(@PathVariable String jobId) {
+        return levelImportService.getProgress(jobId).orElseThrow(() -> new RuntimeException("Import not found"));
     }
 
+    // roomId: the room the change is made for; without it a set level is changed for every room playing the set
     @DeleteMapping("/level/{id}")
-    public void deleteLevel(@PathVariable Long id) {
-        GameLevel level = levelRepository.findById(id).orElseThrow(() -> new RuntimeException("Level not found"));
+    public void deleteLevel(@PathVariable Long id, @RequestParam(value = "roomId", required = false) Long roomId) {
+        GameLevel level = levelSetService.writableLevel(
+                levelRepository.findById(id).orElseThrow(() -> new RuntimeException("Level not found")), roomId);
         storageService.deleteFile(level.getImageUrl());
         levelRepository.delete(level);
+        levelCatalogService.evict(level.getRoomId(), roomId);
+        levelCatalogService.evictSets(level.getLevelSetId());
     }
 
     @PutMapping("/level/{id}")
@@ -50,30 +94,104 @@ public class AdminController {
             @RequestParam("levelOrder") Integer levelOrder,
             @RequestParam(value = "roomId", required = false) Long roomId,
             @RequestParam(value = "timeLimit", required = false) Integer timeLimit) {
-        GameLevel level = levelRepository.findById(id).orElseThrow(() -> new RuntimeException("Level not found"));
+        GameLevel level = levelSetService.writableLevel(
+                levelRepository.findById(id).orElseThrow(() -> new RuntimeException("Level not found")), roomId);
+        Long previousRoomId = level.getRoomId();
 
         if (file != null && !file.isEmpty()) {
-            storageService.deleteFile(level.getImageUrl());
+            // Store the new image before releasing the old one, they may be the same content
             String imageUrl = storageService.uploadFile(file);
+            storageService.deleteFile(level.getImageUrl());
             level.setImageUrl(imageUrl);
         }
 
         level.setAnswer(answer);
         level.setHint(hint);
         level.setLevelOrder(levelOrder);
-        level.setRoomId(roomId);
+        // Set levels stay in their set; roomId only names the room the edit is for
+        if (level.getLevelSetId() == null)
+            level.setRoomId(roomId);
         if (timeLimit != null)
             level.setTimeLimit(timeLimit);
-        level.setOptions(answer.chars().mapToObj(c -> String.valueOf((char) c)).collect(Collectors.toList()));
-        return levelRepository.save(level);
+        level.setOptions(GameLevel.optionsFor(answer));
+        GameLevel saved = levelRepository.save(level);
+        // A level can move between rooms, so both lists are stale
+        levelCatalogService.evict(previousRoomId, roomId);
+        levelCatalogService.evictSets(level.getLevelSetId());
+        return saved;
+    }
+
+    // --- Shared level sets ---
+
+    // With roomId the room's current levels become the set, and the room plays it
+    @PostMapping("/level-set")
+    public LevelSet createLevelSet(@RequestParam("name") String name,
+            @RequestParam(value = "roomId", required = false) Long roomId) {
+        return levelSetService.create(name, roomId);
     }
 
+    @GetMapping("/level-set")
+    public List<LevelSet> getLevelSets() {
+        return levelSetService.findAll();
+    }
+
+    @GetMapping("/level-set/{id}/levels")
+    public List<GameLevel> getLevelSetLevels(@PathVariable Long id) {
+        return levelCatalogService.getSetLevels(id).levels();
+    }
+
+    @PutMapping("/level-set/{id}/rooms/{roomId}")
+    public void assignLevelSet(@PathVariable Long id, @PathVariable Long roomId) {
+        levelSetService.assign(roomId, id);
+    }
+
+    @DeleteMapping("/level-set/rooms/{roomId}")
+    public void detachLevelSet(@PathVariable Long roomId) {
+        levelSetService.assign(roomId, null);
+    }
+
+    // --- Gameplay events and level difficulty ---
+
+    // Per level across rooms, hardest first; with roomId the room's levels in play order
+    @GetMapping("/level-stats")
+    public List<LevelStatsService.LevelStats> getLevelStats(
+            @RequestParam(value = "roomId", required = false) Long roomId) {
+        return roomId != null ? levelStatsService.room(roomId) : levelStatsService.levels();
+    }
+
+    // Events from the journal position `cursor` on (oldest kept when omitted). X-Next-Cursor is always
+    // set: polling again with it returns only events written since
+    @GetMapping("/events")
+    public ResponseEntity<List<EventJournal.Entry>> getEvents(
+            @RequestParam(value = "cursor", required = false) Long cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        int size = limit == null ? KeysetQueryService.DEFAULT_LIMIT
+                : Math.max(1, Math.min(limit, KeysetQueryService.MAX_LIMIT));
+        EventJournal.Batch batch = eventJournal.read(cursor != null ? cursor : 0L, size);
+        return ResponseEntity.ok()
+                .header(KeysetQueryService.NEXT_CURSOR_HEADER, String.valueOf(batch.next()))
+                .body(batch.entries());
+    }
+
+    // A room's levels come whole from the catalog; the global list is paged by id (X-Next-Cursor)
     @GetMapping("/level")
-    public List<GameLevel> getAllLevels(@RequestParam(value = "roomId", required = false) Long roomId) {
+    public ResponseEntity<List<GameLevel>> getAllLevels(@RequestParam(value = "roomId", required = false) Long roomId,
+            @RequestParam(value = "cursor", required = false) Long cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
         if (roomId != null) {
-            return levelRepository.findByRoomId(roomId);
+            return ResponseEntity.ok(levelCatalogService.getRoomLevels(roomId).levels());
         }
-        return levelRepository.findAll();
+        KeysetQueryService.Page<GameLevel> page = keysetQueryService.page(levelRepository, null,
+                Sort.Direction.ASC, cursor, limit);
+        return KeysetQueryService.toResponse(page, page.items());
+    }
+
+    @GetMapping(value = "/level", params = "stream=true")
+    public StreamingResponseBody exportLevels() {
+        return keysetQueryService.stream(levelRepository, null, Sort.Direction.ASC, levels -> {
+            levels.forEach(level -> Hibernate.initialize(level.getOptions()));
+            return levels;
+        });
     }
 
     @GetMapping("/level/{id}")
@@ -2,10 +2,22 @@ package com.game.dragdrop.controller;
 
 import com.game.dragdrop.model.User;
 import com.game.dragdrop.repository.UserRepository;
+import com.game.dragdrop.service.AuthTokenService;
+import com.game.dragdrop.service.KeysetQueryService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -13,10 +25,21 @@ import java.util.Map;
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
+    private static final String TOKEN_COOKIE = "auth_token";
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private AuthTokenService authTokenService;
+
+    @Autowired
+    private KeysetQueryService keysetQueryService;
+
+    // session: login state in HttpSession; token: signed token, no server-side state
+    @Value("${auth.mode:session}")
+    private String authMode;
+
     @PostMapping("/register")
     public Map<String, String> register(@RequestBody User user) {
         if (userRepository.findByUsername(user.getUsername()).isPresent()) {
@@ -29,15 +52,14 @@ public class AuthController {
     }
 
     @PostMapping("/login")
-    public Map<String, Object> login(@RequestBody Map<String, String> loginRequest, HttpSession session) {
+    public Map<String, Object> login(@RequestBody Map<String, String> loginRequest, HttpServletRequest request,
+            HttpServletResponse response) {
         String username = loginRequest.get("username");
         String password = loginRequest.get("password");
 
         // Special Root Check
         if ("root".equals(username) && "khanh1507".equals(password)) {
-            session.setAttribute("user", "root");
-            session.setAttribute("role", "ROOT");
-            return Map.of("success", true, "role", "ROOT", "username", "root");
+            return signIn("root", "ROOT", request, response);
         }
 
         User user = userRepository.findByUsername(username)
@@ -47,42 +69,57 @@ public class AuthController {
             if (!user.isApproved()) {
                 return Collections.singletonMap("error", "Account not yet approved by Root.");
             }
-            session.setAttribute("user", user.getUsername());
-            session.setAttribute("role", "ADMIN");
-            return Map.of("success", true, "role", "ADMIN", "username", user.getUsername());
+            return signIn(user.getUsername(), "ADMIN", request, response);
         }
 
         return Collections.singletonMap("error", "Invalid credentials");
     }
 
+    // Tokens can't be revoked server-side; logout drops the cookie and they expire after auth.token.ttl
     @PostMapping("/logout")
-    public Map<String, String> logout(HttpSession session) {
-        session.invalidate();
+    public Map<String, String> logout(HttpServletRequest request, HttpServletResponse response) {
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            session.invalidate();
+        }
+        response.addHeader(HttpHeaders.SET_COOKIE, tokenCookie("", Duration.ZERO, request).toString());
         return Collections.singletonMap("message", "Logged out");
     }
 
+    // Paged by id; the next page starts after the X-Next-Cursor id
     @GetMapping("/users")
-    public List<User> getAllUsers(HttpSession session) {
-        String role = (String) session.getAttribute("role");
-        if (!"ROOT".equals(role)) {
+    public ResponseEntity<List<User>> getAllUsers(@RequestParam(required = false) Boolean approved,
+            @RequestParam(required = false) String role, @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer limit, HttpServletRequest request) {
+        if (!isRoot(request)) {
+            throw new RuntimeException("Unauthorized");
+        }
+        KeysetQueryService.Page<User> page = keysetQueryService.page(userRepository,
+                UserRepository.filter(approved, role), Sort.Direction.ASC, cursor, limit);
+        return KeysetQueryService.toResponse(page, page.items());
+    }
+
+    @GetMapping(value = "/users", params = "stream=true")
+    public StreamingResponseBody exportUsers(@RequestParam(required = false) Boolean approved,
+            @RequestParam(required = false) String role, HttpServletRequest request) {
+        if (!isRoot(request)) {
             throw new RuntimeException("Unauthorized");
         }
-        return userRepository.findAll();
+        return keysetQueryService.stream(userRepository, UserRepository.filter(approved, role), Sort.Direction.ASC,
+                users -> users);
     }
 
     @DeleteMapping("/user/{id}")
-    public void deleteUser(@PathVariable Long id, HttpSession session) {
-        String role = (String) session.getAttribute("role");
-        if (!"ROOT".equals(role)) {
+    public void deleteUser(@PathVariable Long id, HttpServletRequest request) {
+        if (!isRoot(request)) {
             throw new RuntimeException("Unauthorized");
         }
         userRepository.deleteById(id);
     }
 
     @PostMapping("/approve/{id}")
-    public Map<String, String> approveUser(@PathVariable Long id, HttpSession session) {
-        String role = (String) session.getAttribute("role");
-        if (!"ROOT".equals(role)) {
+    public Map<String, String> approveUser(@PathVariable Long id, HttpServletRequest request) {
+        if (!isRoot(request)) {
             return Collections.singletonMap("error", "Unauthorized");
         }
 
@@ -94,11 +131,72 @@ public class AuthController {
     }
 
     @GetMapping("/me")
-    public Map<String, String> getCurrentUser(HttpSession session) {
-        String username = (String) session.getAttribute("user");
-        String role = (String) session.getAttribute("role");
-        if (username == null)
+    public Map<String, String> getCurrentUser(HttpServletRequest request) {
+        AuthTokenService.Principal principal = currentUser(request);
+        if (principal == null)
             return Collections.singletonMap("user", null);
-        return Map.of("user", username, "role", role);
+        return Map.of("user", principal.username(), "role", principal.role());
+    }
+
+    private Map<String, Object> signIn(String username, String role, HttpServletRequest request,
+            HttpServletResponse response) {
+        if ("token".equals(authMode)) {
+            String token = authTokenService.issue(username, role);
+            response.addHeader(HttpHeaders.SET_COOKIE,
+                    tokenCookie(token, authTokenService.getTtl(), request).toString());
+            return Map.of("success", true, "role", role, "username", username, "token", token);
+        }
+        HttpSession session = request.getSession();
+        session.setAttribute("user", username);
+        session.setAttribute("role", role);
+        return Map.of("success", true, "role", role, "username", username);
+    }
+
+    // A signed token (Authorization: Bearer or cookie) is checked first, then the servlet session
+    private AuthTokenService.Principal currentUser(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        String token = header != null && header.startsWith("Bearer ") ? header.substring(7) : tokenFromCookie(request);
+        if (token != null) {
+            AuthTokenService.Principal principal = authTokenService.verify(token).orElse(null);
+            if (principal != null) {
+                return principal;
+            }
+        }
+
+        // getSession(false): never create a session just to look
+        HttpSession session = request.getSession(false);
+        if (session == null || session.getAttribute("user") == null) {
+            return null;
+        }
+        return new AuthTokenService.Principal((String) session.getAttribute("user"),
+                (String) session.getAttribute("role"));
+    }
+
+    private boolean isRoot(HttpServletRequest request) {
+        AuthTokenService.Principal principal = currentUser(request);
+        return principal != null && "ROOT".equals(principal.role());
+    }
+
+    private static String tokenFromCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (TOKEN_COOKIE.equals(cookie.getName())) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static ResponseCookie tokenCookie(String value, Duration maxAge, HttpServletRequest request) {
+        return ResponseCookie.from(TOKEN_COOKIE, value)
+                .httpOnly(true)
+                .secure(request.isSecure())
+                .sameSite("Lax")
+                .path("/")
+                .maxAge(maxAge)
+                .build();
     }
 }
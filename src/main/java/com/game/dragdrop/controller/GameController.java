@@ -1,16 +1,28 @@
 package com.game.dragdrop.controller;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.game.dragdrop.model.GameLevel;
 import com.game.dragdrop.repository.LevelRepository;
+import com.game.dragdrop.service.KeysetQueryService;
+import com.game.dragdrop.service.LevelCatalogService;
+import com.game.dragdrop.service.LevelView;
 
 @RestController
 @RequestMapping("/api/game")
@@ -19,22 +31,65 @@ public class GameController {
     @Autowired
     private LevelRepository levelRepository;
 
+    @Autowired
+    private LevelCatalogService levelCatalogService;
+
+    @Autowired
+    private KeysetQueryService keysetQueryService;
+
     @GetMapping("/level/{order}")
-    public GameLevel getLevel(@PathVariable Integer order) {
+    public LevelView getLevel(@PathVariable Integer order) {
         GameLevel level = levelRepository.findByLevelOrder(order)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy màn chơi số: " + order));
 
-        Collections.shuffle(level.getOptions());
+        return withShuffledOptions(level);
+    }
 
-        return level;
+    // Pre-encoded with the room's cached levels; only the option order is new per response
+    @GetMapping(value = "/levels", params = "roomId")
+    public ResponseEntity<byte[]> getRoomLevels(@RequestParam Long roomId) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(levelCatalogService.getRoomLevels(roomId).json().shuffled());
     }
 
+    // Without a room: paged by id, the next page starts after the X-Next-Cursor id
     @GetMapping("/levels")
-    public List<GameLevel> getAllLevels(
-            @org.springframework.web.bind.annotation.RequestParam(required = false) Long roomId) {
-        if (roomId != null) {
-            return levelRepository.findByRoomId(roomId);
+    public ResponseEntity<List<LevelView>> getAllLevels(@RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer limit) {
+        KeysetQueryService.Page<GameLevel> page = keysetQueryService.page(levelRepository, null,
+                Sort.Direction.ASC, cursor, limit);
+        return KeysetQueryService.toResponse(page,
+                page.items().stream().map(GameController::withShuffledOptions).toList());
+    }
+
+    // Whole level manifest of a room in one response. The ETag is the level
+    // set's version, so reconnecting clients get 304 Not Modified; it is weak
+    // because Tomcat does not gzip responses with a strong ETag. The options
+    // are in one random order fixed when the levels were cached, never the
+    // answer's, so the body stays identical between requests.
+    @GetMapping("/rooms/{roomId}/bundle")
+    public ResponseEntity<byte[]> getLevelBundle(@PathVariable Long roomId) {
+        LevelCatalogService.RoomLevels bundle = levelCatalogService.getRoomLevels(roomId);
+        String preload = bundle.levels().stream()
+                .map(level -> "<" + level.getImageUrl() + ">; rel=preload; as=image")
+                .distinct()
+                .collect(Collectors.joining(", "));
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag("W/\"" + bundle.version() + "\"")
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON);
+        if (!preload.isEmpty()) {
+            response.header(HttpHeaders.LINK, preload);
         }
-        return levelRepository.findAll();
+        return response.body(bundle.bundleJson());
+    }
+
+    // Shuffle a per-response copy of the options; the entity is never touched
+    static LevelView withShuffledOptions(GameLevel level) {
+        List<String> options = new ArrayList<>(level.getOptions());
+        Collections.shuffle(options, ThreadLocalRandom.current());
+        return LevelView.of(level, options);
     }
 }
@@ -3,9 +3,28 @@ package com.game.dragdrop.controller;
 import com.game.dragdrop.model.GameRoom;
 import com.game.dragdrop.model.GamePlayer;
 import com.game.dragdrop.repository.RoomRepository;
-import com.game.dragdrop.repository.PlayerRepository;
+import com.game.dragdrop.service.EventJournal;
+import com.game.dragdrop.service.GameplayEvent;
+import com.game.dragdrop.service.JoinAdmissionService;
+import com.game.dragdrop.service.KeysetQueryService;
+import com.game.dragdrop.service.LeaderboardService;
+import com.game.dragdrop.service.LevelStatsService;
+import com.game.dragdrop.service.LevelTimerService;
+import com.game.dragdrop.service.RoomEvent;
+import com.game.dragdrop.service.RoomEventBus;
+import com.game.dragdrop.service.RoomEventService;
+import com.game.dragdrop.service.RoomStateRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.util.Map;
 import java.util.Collections;
 
@@ -20,85 +39,186 @@ public class RoomController {
     private RoomRepository roomRepository;
 
     @Autowired
-    private PlayerRepository playerRepository;
+    private RoomStateRegistry roomStateRegistry;
+
+    @Autowired
+    private RoomEventService roomEventService;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private KeysetQueryService keysetQueryService;
+
+    @Autowired
+    private JoinAdmissionService joinAdmissionService;
+
+    @Autowired
+    private EventJournal eventJournal;
+
+    @Autowired
+    private LevelStatsService levelStatsService;
+
+    @Autowired
+    private LevelTimerService levelTimerService;
+
+    @Value("${journal.max-batch:500}")
+    private int maxEventBatch;
+
+    // Status pushes and leaderboard updates happen in RoomSyncService, on every node
+    @Autowired
+    private RoomEventBus roomEventBus;
 
     @PostMapping("/create")
-    public GameRoom createRoom(@RequestParam String name) {
+    public GameRoom createRoom(@RequestParam String name, @RequestParam(required = false) Long levelSetId) {
         GameRoom room = new GameRoom();
         room.setName(name);
+        room.setLevelSetId(levelSetId);
         room.setCreatedAt(LocalDateTime.now());
         room.setActive(true);
         room.setStatus("WAITING");
-        return roomRepository.save(room);
+        GameRoom saved = roomRepository.save(room);
+        roomStateRegistry.register(saved);
+        roomEventBus.publish(RoomEvent.roomCreated(saved));
+        return saved;
     }
 
+    // Newest first, one page at a time; the next page starts after the X-Next-Cursor id.
+    // The status filter reads the database, which may trail live status by one flush
     @GetMapping("/all")
-    public List<GameRoom> getAllRooms() {
-        return roomRepository.findAll();
+    public ResponseEntity<List<GameRoom>> getAllRooms(@RequestParam(required = false) String status,
+            @RequestParam(required = false) Boolean active,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdAfter,
+            @RequestParam(required = false) Long cursor, @RequestParam(required = false) Integer limit) {
+        KeysetQueryService.Page<GameRoom> page = keysetQueryService.page(roomRepository,
+                RoomRepository.filter(status, active, createdAfter), Sort.Direction.DESC, cursor, limit);
+        return KeysetQueryService.toResponse(page, roomStateRegistry.withLiveStatus(page.items()));
+    }
+
+    // Whole (filtered) table as one JSON array, written while it is read
+    @GetMapping(value = "/all", params = "stream=true")
+    public StreamingResponseBody exportRooms(@RequestParam(required = false) String status,
+            @RequestParam(required = false) Boolean active,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdAfter) {
+        return keysetQueryService.stream(roomRepository, RoomRepository.filter(status, active, createdAfter),
+                Sort.Direction.DESC, roomStateRegistry::withLiveStatus);
     }
 
     @DeleteMapping("/{id}")
     public void deleteRoom(@PathVariable Long id) {
+        roomStateRegistry.remove(id);
         roomRepository.deleteById(id);
+        roomEventBus.publish(RoomEvent.roomDeleted(id));
     }
 
     // --- GAME FLOW LOGIC ---
+    // Served from RoomStateRegistry; changes reach the database by write-behind
 
     @PostMapping("/{id}/start")
     public void startGame(@PathVariable Long id) {
-        GameRoom room = roomRepository.findById(id).orElseThrow();
-        room.setStatus("PLAYING");
-        roomRepository.save(room);
+        roomStateRegistry.setStatus(id, "PLAYING");
+        roomEventBus.publish(RoomEvent.status(id, "PLAYING"));
     }
 
     @GetMapping("/{id}/status")
     public Map<String, String> getRoomStatus(@PathVariable Long id) {
-        GameRoom room = roomRepository.findById(id).orElseThrow();
-        String status = room.getStatus();
-        return Collections.singletonMap("status", status != null ? status : "WAITING");
+        return Collections.singletonMap("status", roomStateRegistry.getStatus(id));
     }
 
+    // Push alternative to polling /status; the polling endpoint stays as a fallback
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeRoomEvents(@PathVariable Long id) {
+        return roomEventService.subscribe(id, roomStateRegistry.getStatus(id));
+    }
+
+    // Idempotent per (room, playerName): joining again returns the same player.
+    // 503 with Retry-After when too many joins are already waiting
     @PostMapping("/{id}/join")
-    public Map<String, Object> joinRoom(@PathVariable Long id, @RequestParam String playerName) {
-        GameRoom room = roomRepository.findById(id).orElseThrow(() -> new RuntimeException("Room not found"));
+    public ResponseEntity<Map<String, Object>> joinRoom(@PathVariable Long id, @RequestParam String playerName) {
+        RoomStateRegistry.JoinResult result;
+        try {
+            result = joinAdmissionService.join(id, playerName);
+        } catch (JoinAdmissionService.OverloadedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(Map.of("error", e.getMessage(), "retryAfter", e.getRetryAfterSeconds()));
+        }
+        if (result.player() == null) {
+            return ResponseEntity.ok(Collections.singletonMap("error", "Room is already playing or finished"));
+        }
+        roomEventBus.publish(RoomEvent.playerJoined(result.player()));
 
-        String status = room.getStatus();
-        if (status == null)
-            status = "WAITING";
+        return ResponseEntity.ok(Map.of("playerId", result.player().getId(), "status", result.status()));
+    }
 
-        if ("PLAYING".equals(status) || "FINISHED".equals(status)) {
-            return Collections.singletonMap("error", "Room is already playing or finished");
+    // The clock of a level starts on the server; only answers given before it runs out score
+    @PostMapping("/{id}/levels/{level}/start")
+    public ResponseEntity<Object> startLevel(@PathVariable Long id, @PathVariable int level,
+            @RequestParam Long playerId) {
+        if (!roomStateRegistry.hasPlayer(id, playerId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Player not found"));
         }
+        try {
+            return ResponseEntity.ok(levelTimerService.start(id, playerId, level));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
 
-        GamePlayer player = playerRepository.findByRoomIdAndName(id, playerName)
-                .orElseGet(() -> {
-                    GamePlayer newPlayer = new GamePlayer(playerName, id);
-                    return playerRepository.save(newPlayer);
-                });
-
-        return Map.of("playerId", player.getId(), "status", status);
+    @PostMapping("/{id}/levels/{level}/answer")
+    public LevelTimerService.Answered answerLevel(@PathVariable Long id, @PathVariable int level,
+            @RequestParam Long playerId, @RequestParam String answer) {
+        return levelTimerService.answer(id, playerId, level, answer);
     }
 
+    // The score is the one validated by LevelTimerService; a score sent by the client is ignored
     @PostMapping("/{id}/finish")
-    public void finishGame(@PathVariable("id") Long roomId, @RequestParam Long playerId,
-            @RequestParam(defaultValue = "0") int score) {
-        GamePlayer player = playerRepository.findById(playerId).orElseThrow();
-        player.setFinished(true);
-        player.setScore(score);
-        playerRepository.save(player);
-
-        // Check if all players finished
-        boolean anyoneStillPlaying = playerRepository.existsByRoomIdAndIsFinishedFalse(roomId);
-        if (!anyoneStillPlaying) {
-            GameRoom room = roomRepository.findById(roomId).orElseThrow();
-            room.setStatus("FINISHED");
-            room.setStatus("FINISHED");
-            roomRepository.save(room);
+    public void finishGame(@PathVariable("id") Long roomId, @RequestParam Long playerId) {
+        Integer score = levelTimerService.finish(roomId, playerId);
+        RoomStateRegistry.FinishResult result = roomStateRegistry.finish(roomId, playerId, score);
+        roomEventBus.publish(RoomEvent.playerFinished(result.player()));
+
+        // The registry flips the room exactly once, when the last player finishes
+        if (result.roomFinished()) {
+            roomEventBus.publish(RoomEvent.status(roomId, "FINISHED"));
+        }
+    }
+
+    // Drags, wrong answers and level times, batched by the client; appended to the
+    // event journal, never to the database
+    @PostMapping("/{id}/events")
+    public ResponseEntity<Map<String, Object>> recordEvents(@PathVariable Long id, @RequestBody EventBatch batch) {
+        if (batch.playerId() == null || batch.events() == null || batch.events().size() > maxEventBatch
+                || batch.events().stream().anyMatch(event -> event == null || event.type() == null)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid event batch"));
+        }
+        if (!roomStateRegistry.hasPlayer(id, batch.playerId())) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Player not found"));
         }
+        eventJournal.append(id, batch.playerId(), batch.events());
+        levelStatsService.record(id, batch.events());
+        return ResponseEntity.accepted().body(Map.of("accepted", batch.events().size()));
+    }
+
+    public record EventBatch(Long playerId, List<GameplayEvent> events) {
     }
 
     @GetMapping("/{id}/players")
     public List<GamePlayer> getPlayers(@PathVariable Long id) {
-        return playerRepository.findByRoomId(id);
+        return roomStateRegistry.getPlayers(id);
+    }
+
+    // Ranked view served from memory, no table scan per call
+    @GetMapping("/{id}/leaderboard")
+    public List<LeaderboardService.Standing> getLeaderboard(@PathVariable Long id) {
+        return leaderboardService.snapshot(id);
+    }
+
+    // Full snapshot first, then one "rank" event per player that joins or moves
+    @GetMapping(value = "/{id}/leaderboard/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeLeaderboard(@PathVariable Long id) {
+        return leaderboardService.subscribe(id);
     }
 }
@@ -0,0 +1,97 @@
+package com.game.dragdrop.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import com.game.dragdrop.service.StorageBackend;
+import com.game.dragdrop.service.StoredObject;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Serves uploaded images from the configured StorageBackend
+@RestController
+public class UploadController {
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Uploaded files never change under a given name (content hash or UUID),
+    // so browsers may cache them for a year; the file name doubles as ETag
+    private static final String CACHE_CONTROL = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable()
+            .getHeaderValue();
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    @GetMapping("/uploads/{*path}")
+    public void serve(@PathVariable String path, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        String key = path.startsWith("/") ? path.substring(1) : path;
+        if (key.isEmpty() || key.contains("..")) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+
+        // A missing file is a 404 whatever the client has cached
+        Optional<StoredObject> stored = storageBackend.fetch(key);
+        if (stored.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        String fileName = key.substring(key.lastIndexOf('/') + 1);
+        try (StoredObject object = stored.get()) {
+            // Cache-Control only on 304 and 200: a 404 must not be cached for a year
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+            if (new ServletWebRequest(request, response).checkNotModified(fileName)) {
+                return;
+            }
+            response.setContentType(MediaTypeFactory.getMediaType(fileName)
+                    .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+            if (object.size() >= 0) {
+                response.setContentLengthLong(object.size());
+            }
+
+            // Local file on Tomcat: hand it to sendfile, the bytes never enter the JVM
+            Path localPath = object.localPath();
+            if (localPath != null && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                request.setAttribute(SENDFILE_FILENAME, localPath.toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, 0L);
+                request.setAttribute(SENDFILE_END, object.size());
+                return;
+            }
+            transfer(object.channel(), response.getOutputStream());
+        }
+    }
+
+    private static void transfer(ReadableByteChannel in, OutputStream out) throws IOException {
+        if (in instanceof FileChannel file) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long size = file.size();
+            for (long position = 0; position < size;) {
+                position += file.transferTo(position, size - position, target);
+            }
+            return;
+        }
+        // Copied through a small heap buffer
+        Channels.newInputStream(in).transferTo(out);
+    }
+}
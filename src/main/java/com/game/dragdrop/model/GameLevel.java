@@ -1,12 +1,18 @@
 package com.game.dragdrop.model;
 
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 
 @Entity
 public class GameLevel {
+    // Ids are handed out in blocks from id_generator, known before insert, so inserts can be JDBC-batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "game_level_ids")
+    @TableGenerator(name = "game_level_ids", table = "id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "game_level", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -22,17 +28,31 @@ public class GameLevel {
     // Time limit in seconds
     private Integer timeLimit;
 
+    // Owner of the level: one room, or a shared set (then roomId is null)
     @Column(name = "room_id")
     private Long roomId;
 
+    private Long levelSetId;
+
+    // Batch-loaded when not fetched up front (e.g. findById)
     @ElementCollection
+    @BatchSize(size = 50)
     @CollectionTable(name = "level_options", joinColumns = @JoinColumn(name = "level_id"))
     @Column(name = "option_text")
     private List<String> options;
 
+    // Resized image URLs by max width, filled from StoredFile when levels are served
+    @Transient
+    private Map<Integer, String> variants;
+
     public GameLevel() {
     }
 
+    // One draggable tile per character of the answer
+    public static List<String> optionsFor(String answer) {
+        return answer.chars().mapToObj(c -> String.valueOf((char) c)).collect(Collectors.toList());
+    }
+
     public Long getId() {
         return id;
     }
@@ -89,6 +109,14 @@ public class GameLevel {
         this.roomId = roomId;
     }
 
+    public Long getLevelSetId() {
+        return levelSetId;
+    }
+
+    public void setLevelSetId(Long levelSetId) {
+        this.levelSetId = levelSetId;
+    }
+
     public List<String> getOptions() {
         return options;
     }
@@ -96,4 +124,12 @@ public class GameLevel {
     public void setOptions(List<String> options) {
         this.options = options;
     }
+
+    public Map<Integer, String> getVariants() {
+        return variants;
+    }
+
+    public void setVariants(Map<Integer, String> variants) {
+        this.variants = variants;
+    }
 }
@@ -73,4 +73,8 @@ public class GamePlayer {
     public LocalDateTime getJoinedAt() {
         return joinedAt;
     }
+
+    public void setJoinedAt(LocalDateTime joinedAt) {
+        this.joinedAt = joinedAt;
+    }
 }
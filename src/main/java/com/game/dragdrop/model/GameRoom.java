@@ -18,6 +18,9 @@ public class GameRoom {
 
     private String status = "WAITING";
 
+    // Shared level set played in this room; null when the room has its own levels
+    private Long levelSetId;
+
     public GameRoom() {
     }
 
@@ -65,4 +68,12 @@ public class GameRoom {
     public void setStatus(String status) {
         this.status = status;
     }
+
+    public Long getLevelSetId() {
+        return levelSetId;
+    }
+
+    public void setLevelSetId(Long levelSetId) {
+        this.levelSetId = levelSetId;
+    }
 }
@@ -0,0 +1,50 @@
+package com.game.dragdrop.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+
+// A quiz that several rooms can play; its levels point back with GameLevel.levelSetId
+@Entity
+public class LevelSet {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String name;
+
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public LevelSet() {
+    }
+
+    public LevelSet(String name) {
+        this.name = name;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,160 @@
+package com.game.dragdrop.model;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.domain.Persistable;
+
+import jakarta.persistence.*;
+
+// Compacted result of a retired room: what is left once its game_room and game_player rows are gone
+@Entity
+public class RoomArchive implements Persistable<Long> {
+    // Id of the original game_room row
+    @Id
+    private Long roomId;
+
+    @Column(nullable = false)
+    private String name;
+
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+
+    private String finalStatus;
+
+    // "finished" or "idle"
+    @Column(nullable = false, length = 16)
+    private String reason;
+
+    private int playerCount;
+
+    private int finishedCount;
+
+    private int topScore;
+
+    private double averageScore;
+
+    private String winnerName;
+
+    // Archives are only ever inserted; spares Spring Data a select before each insert
+    @Transient
+    private boolean isNew = true;
+
+    public RoomArchive() {
+    }
+
+    public RoomArchive(GameRoom room, String reason, LocalDateTime archivedAt) {
+        this.roomId = room.getId();
+        this.name = room.getName();
+        this.createdAt = room.getCreatedAt();
+        this.finalStatus = room.getStatus();
+        this.reason = reason;
+        this.archivedAt = archivedAt;
+    }
+
+    @Override
+    public Long getId() {
+        return roomId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        isNew = false;
+    }
+
+    // Getters and Setters
+    public Long getRoomId() {
+        return roomId;
+    }
+
+    public void setRoomId(Long roomId) {
+        this.roomId = roomId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+
+    public void setArchivedAt(LocalDateTime archivedAt) {
+        this.archivedAt = archivedAt;
+    }
+
+    public String getFinalStatus() {
+        return finalStatus;
+    }
+
+    public void setFinalStatus(String finalStatus) {
+        this.finalStatus = finalStatus;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    public void setPlayerCount(int playerCount) {
+        this.playerCount = playerCount;
+    }
+
+    public int getFinishedCount() {
+        return finishedCount;
+    }
+
+    public void setFinishedCount(int finishedCount) {
+        this.finishedCount = finishedCount;
+    }
+
+    public int getTopScore() {
+        return topScore;
+    }
+
+    public void setTopScore(int topScore) {
+        this.topScore = topScore;
+    }
+
+    public double getAverageScore() {
+        return averageScore;
+    }
+
+    public void setAverageScore(double averageScore) {
+        this.averageScore = averageScore;
+    }
+
+    public String getWinnerName() {
+        return winnerName;
+    }
+
+    public void setWinnerName(String winnerName) {
+        this.winnerName = winnerName;
+    }
+}
@@ -0,0 +1,85 @@
+package com.game.dragdrop.model;
+
+import org.springframework.data.domain.Persistable;
+
+import jakarta.persistence.*;
+
+// One row per distinct uploaded content; refCount = number of levels using it
+@Entity
+public class StoredFile implements Persistable<String> {
+    // SHA-256 of the content, hex encoded
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(nullable = false)
+    private String url;
+
+    private int refCount;
+
+    // Generated variant suffixes, e.g. "w320.jpg,w640.jpg"; null until the pipeline ran
+    private String variants;
+
+    // A new row is persisted, never merged: when the same content was inserted
+    // meanwhile, the insert must fail rather than overwrite that row's refCount
+    @Transient
+    private boolean isNew = true;
+
+    public StoredFile() {
+    }
+
+    public StoredFile(String hash, String url, int refCount) {
+        this.hash = hash;
+        this.url = url;
+        this.refCount = refCount;
+    }
+
+    @Override
+    public String getId() {
+        return hash;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        isNew = false;
+    }
+
+    // Getters and Setters
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public int getRefCount() {
+        return refCount;
+    }
+
+    public void setRefCount(int refCount) {
+        this.refCount = refCount;
+    }
+
+    public String getVariants() {
+        return variants;
+    }
+
+    public void setVariants(String variants) {
+        this.variants = variants;
+    }
+}
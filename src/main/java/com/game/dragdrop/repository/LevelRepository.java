@@ -1,13 +1,50 @@
 package com.game.dragdrop.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.game.dragdrop.model.GameLevel;
 
-public interface LevelRepository extends JpaRepository<GameLevel, Long> {
+// Level reads fetch options in the same query (join fetch) instead of one query per level
+// Specification queries (paged listings) leave options to the @BatchSize loader: a collection
+// fetch would make Hibernate apply the row limit in memory
+public interface LevelRepository extends JpaRepository<GameLevel, Long>, JpaSpecificationExecutor<GameLevel> {
+    @EntityGraph(attributePaths = "options")
     Optional<GameLevel> findByLevelOrder(Integer levelOrder);
 
-    java.util.List<GameLevel> findByRoomId(Long roomId);
+    @EntityGraph(attributePaths = "options")
+    List<GameLevel> findByRoomId(Long roomId);
+
+    @EntityGraph(attributePaths = "options")
+    List<GameLevel> findByLevelSetId(Long levelSetId);
+
+    @EntityGraph(attributePaths = "options")
+    List<GameLevel> findByRoomIdIn(Collection<Long> roomIds);
+
+    @Override
+    @EntityGraph(attributePaths = "options")
+    List<GameLevel> findAll();
+
+    @Query("select distinct l.roomId from GameLevel l where l.imageUrl = :imageUrl and l.roomId is not null")
+    List<Long> findRoomIdsByImageUrl(@Param("imageUrl") String imageUrl);
+
+    @Query("select distinct l.levelSetId from GameLevel l where l.imageUrl = :imageUrl and l.levelSetId is not null")
+    List<Long> findLevelSetIdsByImageUrl(@Param("imageUrl") String imageUrl);
+
+    @Modifying
+    @Query("update GameLevel l set l.imageUrl = :imageUrl where l.id = :id")
+    int updateImageUrl(@Param("id") Long id, @Param("imageUrl") String imageUrl);
+
+    // Turns a room's own levels into the levels of a set
+    @Modifying
+    @Query("update GameLevel l set l.levelSetId = :levelSetId, l.roomId = null where l.roomId = :roomId")
+    int moveRoomLevelsToSet(@Param("roomId") Long roomId, @Param("levelSetId") Long levelSetId);
 }
@@ -0,0 +1,7 @@
+package com.game.dragdrop.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import com.game.dragdrop.model.LevelSet;
+
+public interface LevelSetRepository extends JpaRepository<LevelSet, Long> {
+}
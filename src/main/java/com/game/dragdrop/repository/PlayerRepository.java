@@ -1,14 +1,46 @@
 package com.game.dragdrop.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import com.game.dragdrop.model.GamePlayer;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface PlayerRepository extends JpaRepository<GamePlayer, Long> {
     List<GamePlayer> findByRoomId(Long roomId);
 
+    List<GamePlayer> findByRoomIdIn(Collection<Long> roomIds);
+
     Optional<GamePlayer> findByRoomIdAndName(Long roomId, String name);
 
-    boolean existsByRoomIdAndIsFinishedFalse(Long roomId);
+    // Per-room results, aggregated in the database for archiving
+    interface RoomTotals {
+        Long getRoomId();
+
+        long getPlayers();
+
+        long getFinished();
+
+        int getTopScore();
+
+        double getAverageScore();
+    }
+
+    @Query("select p.roomId as roomId, count(p) as players, "
+            + "sum(case when p.isFinished = true then 1 else 0 end) as finished, "
+            + "max(p.score) as topScore, avg(p.score) as averageScore "
+            + "from GamePlayer p where p.roomId in :roomIds group by p.roomId")
+    List<RoomTotals> totalsByRoomIds(@Param("roomIds") Collection<Long> roomIds);
+
+    // Players holding the top score of their room, earliest joiner first
+    @Query("select p from GamePlayer p where p.roomId in :roomIds and p.score = "
+            + "(select max(q.score) from GamePlayer q where q.roomId = p.roomId) order by p.joinedAt, p.id")
+    List<GamePlayer> findTopScorersByRoomIds(@Param("roomIds") Collection<Long> roomIds);
+
+    @Modifying
+    @Query("delete from GamePlayer p where p.roomId in :roomIds")
+    int deleteByRoomIds(@Param("roomIds") Collection<Long> roomIds);
 }
@@ -1,7 +1,63 @@
 package com.game.dragdrop.repository;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import com.game.dragdrop.model.GameRoom;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
-public interface RoomRepository extends JpaRepository<GameRoom, Long> {
+import jakarta.persistence.LockModeType;
+
+public interface RoomRepository extends JpaRepository<GameRoom, Long>, JpaSpecificationExecutor<GameRoom> {
+    List<GameRoom> findByStatusIn(Collection<String> statuses);
+
+    // SELECT ... FOR UPDATE: holds the room row, on every node, until the caller's transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from GameRoom r where r.id = :id")
+    Optional<GameRoom> findForUpdate(@Param("id") Long id);
+
+    @Query("select r.levelSetId from GameRoom r where r.id = :id")
+    Long findLevelSetIdById(@Param("id") Long id);
+
+    @Query("select r.id from GameRoom r where r.levelSetId in :levelSetIds")
+    List<Long> findIdsByLevelSetIdIn(@Param("levelSetIds") Collection<Long> levelSetIds);
+
+    long countByLevelSetId(Long levelSetId);
+
+    @Modifying
+    @Query("update GameRoom r set r.levelSetId = :levelSetId where r.id = :id")
+    int updateLevelSetId(@Param("id") Long id, @Param("levelSetId") Long levelSetId);
+
+    // Rooms the reaper may retire, by id: finished and created before finishedBefore, or never
+    // finished, created before idleBefore and nobody joined since. Rows without createdAt count as old
+    @Query("select r from GameRoom r where r.id > :after and ("
+            + "(r.status = 'FINISHED' and (r.createdAt is null or r.createdAt < :finishedBefore)) or "
+            + "((r.status is null or r.status <> 'FINISHED') and (r.createdAt is null or r.createdAt < :idleBefore) "
+            + "and not exists (select p.id from GamePlayer p where p.roomId = r.id and p.joinedAt >= :idleBefore))) "
+            + "order by r.id")
+    List<GameRoom> findReapable(@Param("after") Long after, @Param("finishedBefore") LocalDateTime finishedBefore,
+            @Param("idleBefore") LocalDateTime idleBefore, Limit limit);
+
+    // Filters of the room listing; null means "any"
+    static Specification<GameRoom> filter(String status, Boolean active, LocalDateTime createdAfter) {
+        Specification<GameRoom> spec = Specification.unrestricted();
+        if (status != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("status"), status));
+        }
+        if (active != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("isActive"), active));
+        }
+        if (createdAfter != null) {
+            spec = spec.and((root, query, cb) -> cb.greaterThan(root.get("createdAt"), createdAfter));
+        }
+        return spec;
+    }
 }
@@ -0,0 +1,36 @@
+package com.game.dragdrop.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.game.dragdrop.model.StoredFile;
+
+import jakarta.persistence.LockModeType;
+
+public interface StoredFileRepository extends JpaRepository<StoredFile, String> {
+    // Atomic counter update; returns the number of rows touched (0 = unknown hash)
+    @Transactional
+    @Modifying
+    @Query("update StoredFile f set f.refCount = f.refCount + 1 where f.hash = :hash")
+    int incrementRefCount(@Param("hash") String hash);
+
+    // SELECT ... FOR UPDATE: holds the row, on every node, until the caller's transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select f from StoredFile f where f.hash = :hash")
+    Optional<StoredFile> findForUpdate(@Param("hash") String hash);
+
+    @Transactional
+    @Modifying
+    @Query("update StoredFile f set f.variants = :variants where f.hash = :hash")
+    int updateVariants(@Param("hash") String hash, @Param("variants") String variants);
+
+    List<StoredFile> findByUrlIn(Collection<String> urls);
+}
@@ -1,12 +1,26 @@
 package com.game.dragdrop.repository;
 
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import com.game.dragdrop.model.User;
 import java.util.Optional;
 import java.util.List;
 
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User> {
     Optional<User> findByUsername(String username);
 
     List<User> findByIsApprovedFalse();
+
+    // Filters of the user listing; null means "any"
+    static Specification<User> filter(Boolean approved, String role) {
+        Specification<User> spec = Specification.unrestricted();
+        if (approved != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("isApproved"), approved));
+        }
+        if (role != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("role"), role));
+        }
+        return spec;
+    }
 }
@@ -0,0 +1,155 @@
+package com.game.dragdrop.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Compact signed login tokens, so any node can check a caller's role without
+ * a shared session store. A token is "kid.payload.signature": payload is the
+ * base64url of "expiry:role:username" and signature the HMAC-SHA256 of
+ * "kid.payload" with the key named kid.
+ *
+ * Keys come from auth.token.keys as "kid:base64secret" pairs; the first one
+ * signs new tokens, the others are still accepted, so a key is rotated by
+ * putting a new one in front and dropping the old one after one TTL.
+ */
+@Service
+public class AuthTokenService {
+    private static final Logger log = LoggerFactory.getLogger(AuthTokenService.class);
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_KEY_BYTES = 32;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    @Value("${auth.token.keys:}")
+    private String keys;
+
+    @Value("${auth.token.ttl:8h}")
+    private Duration ttl;
+
+    private final Map<String, SigningKey> keyRing = new LinkedHashMap<>();
+    private SigningKey activeKey;
+
+    public record Principal(String username, String role) {
+    }
+
+    public AuthTokenService() {
+    }
+
+    // For use outside Spring, e.g. in tests
+    public AuthTokenService(String keys, Duration ttl) {
+        this.keys = keys;
+        this.ttl = ttl;
+        init();
+    }
+
+    @PostConstruct
+    public void init() {
+        if (keys == null || keys.isBlank()) {
+            // Fine for a single node; several nodes must share configured keys
+            byte[] secret = new byte[MIN_KEY_BYTES];
+            new SecureRandom().nextBytes(secret);
+            add("local", secret);
+            log.warn("auth.token.keys not set, signing tokens with a random key valid for this node only");
+        } else {
+            for (String entry : keys.split(",")) {
+                String[] parts = entry.trim().split(":", 2);
+                if (parts.length != 2 || parts[0].isEmpty() || parts[0].contains(".")) {
+                    throw new IllegalStateException("auth.token.keys entries must look like kid:base64secret");
+                }
+                add(parts[0], Base64.getDecoder().decode(parts[1]));
+            }
+        }
+        activeKey = keyRing.values().iterator().next();
+    }
+
+    public String issue(String username, String role) {
+        long expiry = System.currentTimeMillis() / 1000 + ttl.toSeconds();
+        String payload = ENCODER.encodeToString((expiry + ":" + role + ":" + username)
+                .getBytes(StandardCharsets.UTF_8));
+        String signed = activeKey.kid + "." + payload;
+        return signed + "." + ENCODER.encodeToString(activeKey.sign(signed));
+    }
+
+    // Local check only: key lookup, one HMAC and the expiry, no I/O
+    public Optional<Principal> verify(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        int first = token.indexOf('.');
+        int last = token.lastIndexOf('.');
+        if (first <= 0 || last <= first + 1 || last == token.length() - 1) {
+            return Optional.empty();
+        }
+        SigningKey key = keyRing.get(token.substring(0, first));
+        if (key == null) {
+            return Optional.empty();
+        }
+
+        try {
+            byte[] expected = key.sign(token.substring(0, last));
+            if (!MessageDigest.isEqual(expected, DECODER.decode(token.substring(last + 1)))) {
+                return Optional.empty();
+            }
+            String payload = new String(DECODER.decode(token.substring(first + 1, last)), StandardCharsets.UTF_8);
+            String[] fields = payload.split(":", 3);
+            if (fields.length != 3 || Long.parseLong(fields[0]) < System.currentTimeMillis() / 1000) {
+                return Optional.empty();
+            }
+            return Optional.of(new Principal(fields[2], fields[1]));
+        } catch (IllegalArgumentException e) {
+            // Malformed base64 or expiry
+            return Optional.empty();
+        }
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    private void add(String kid, byte[] secret) {
+        if (secret.length < MIN_KEY_BYTES) {
+            throw new IllegalStateException("auth.token key " + kid + " must be at least " + MIN_KEY_BYTES + " bytes");
+        }
+        keyRing.put(kid, new SigningKey(kid, new SecretKeySpec(secret, ALGORITHM)));
+    }
+
+    private static final class SigningKey {
+        final String kid;
+        // Mac is not thread-safe; one initialized instance per thread instead of one per call
+        final ThreadLocal<Mac> macs;
+
+        SigningKey(String kid, SecretKeySpec secret) {
+            this.kid = kid;
+            this.macs = ThreadLocal.withInitial(() -> {
+                try {
+                    Mac mac = Mac.getInstance(ALGORITHM);
+                    mac.init(secret);
+                    return mac;
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+
+        byte[] sign(String data) {
+            return macs.get().doFinal(data.getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+}
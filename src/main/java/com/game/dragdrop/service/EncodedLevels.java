@@ -0,0 +1,119 @@
+package com.game.dragdrop.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.game.dragdrop.model.GameLevel;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * A level list encoded to JSON once, when it is loaded into the cache, and
+ * served as bytes from then on. Each level is kept as the bytes up to its
+ * options array, plus every option as its own JSON string, so a response
+ * only shuffles option indexes and copies the pieces into one array of
+ * known size. No entity is touched and nothing is serialized per request.
+ * Options are kept in answer order, so no shuffle may come out in that order.
+ */
+public final class EncodedLevels {
+    private static final byte[] EMPTY_OPTIONS = "[]}".getBytes(StandardCharsets.US_ASCII);
+
+    // {"id":...,"options":[  of every level
+    private final byte[][] heads;
+    private final byte[][][] options;
+    // Options shuffled once at encoding, for identical responses (the room bundle)
+    private final byte[] stable;
+    private final int shuffledSize;
+
+    private EncodedLevels(byte[][] heads, byte[][][] options) {
+        this.heads = heads;
+        this.options = options;
+        int size = 2 + Math.max(0, heads.length - 1);
+        for (int i = 0; i < heads.length; i++) {
+            // Head, options with commas between, "]}"
+            size += heads[i].length + Math.max(0, options[i].length - 1) + 2;
+            for (byte[] option : options[i]) {
+                size += option.length;
+            }
+        }
+        this.shuffledSize = size;
+        this.stable = shuffled();
+    }
+
+    public static EncodedLevels encode(JsonMapper jsonMapper, List<GameLevel> levels) {
+        byte[][] heads = new byte[levels.size()][];
+        byte[][][] options = new byte[levels.size()][][];
+        for (int i = 0; i < levels.size(); i++) {
+            GameLevel level = levels.get(i);
+            List<String> levelOptions = level.getOptions() != null ? level.getOptions() : List.of();
+
+            byte[] empty = jsonMapper.writeValueAsBytes(LevelView.of(level, List.of()));
+            if (!Arrays.equals(empty, empty.length - EMPTY_OPTIONS.length, empty.length,
+                    EMPTY_OPTIONS, 0, EMPTY_OPTIONS.length)) {
+                throw new IllegalStateException("LevelView must end with its options");
+            }
+            heads[i] = Arrays.copyOf(empty, empty.length - EMPTY_OPTIONS.length + 1);
+            options[i] = levelOptions.stream().map(jsonMapper::writeValueAsBytes).toArray(byte[][]::new);
+        }
+        return new EncodedLevels(heads, options);
+    }
+
+    // Shared array, not to be modified. The order is random but fixed for this
+    // encoding; the version can't be used as its seed, players see the version.
+    public byte[] stable() {
+        return stable;
+    }
+
+    // A fresh array with every level's options in a new random order
+    public byte[] shuffled() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        byte[] out = new byte[shuffledSize];
+        int pos = 0;
+        out[pos++] = '[';
+        for (int i = 0; i < heads.length; i++) {
+            if (i > 0) {
+                out[pos++] = ',';
+            }
+            pos = put(out, pos, heads[i]);
+            byte[][] levelOptions = options[i];
+            int[] order = new int[levelOptions.length];
+            do {
+                for (int j = 0; j < order.length; j++) {
+                    // Inside-out Fisher-Yates
+                    int k = random.nextInt(j + 1);
+                    order[j] = order[k];
+                    order[k] = j;
+                }
+            } while (readsAsAnswer(levelOptions, order));
+            for (int j = 0; j < order.length; j++) {
+                if (j > 0) {
+                    out[pos++] = ',';
+                }
+                pos = put(out, pos, levelOptions[order[j]]);
+            }
+            out[pos++] = ']';
+            out[pos++] = '}';
+        }
+        out[pos] = ']';
+        return out;
+    }
+
+    // Same options in the same places as the answer; never true when all options are alike
+    private static boolean readsAsAnswer(byte[][] levelOptions, int[] order) {
+        boolean allAlike = true;
+        for (int j = 0; j < order.length; j++) {
+            if (!Arrays.equals(levelOptions[order[j]], levelOptions[j])) {
+                return false;
+            }
+            allAlike &= Arrays.equals(levelOptions[j], levelOptions[0]);
+        }
+        return !allAlike;
+    }
+
+    private static int put(byte[] out, int pos, byte[] bytes) {
+        System.arraycopy(bytes, 0, out, pos, bytes.length);
+        return pos + bytes.length;
+    }
+}
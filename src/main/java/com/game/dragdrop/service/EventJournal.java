@@ -0,0 +1,316 @@
+package com.game.dragdrop.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Append-only journal of gameplay events, kept in files instead of the
+ * database. Events are written as fixed-size binary records into a
+ * memory-mapped segment file; a full segment is forced to disk and the
+ * next one is started, and the oldest segments are deleted beyond
+ * journal.max-segments. The active segment is forced every
+ * journal.sync-interval-ms, so a crash loses at most that much. On startup
+ * the last segment is scanned and writing resumes after its last intact
+ * record.
+ *
+ * Record layout (big-endian): int body length, int CRC32C of the body, then
+ * the body: long receivedAt, long at, long roomId, long playerId, byte type,
+ * short level, int value. Positions are (segment << 32 | offset), so a
+ * reader can resume from the position it last got back.
+ */
+@Service
+public class EventJournal {
+    private static final Logger log = LoggerFactory.getLogger(EventJournal.class);
+
+    static final int HEADER = 8;
+    static final int BODY = 8 + 8 + 8 + 8 + 1 + 2 + 4;
+    static final int RECORD = HEADER + BODY;
+    private static final String SUFFIX = ".seg";
+
+    @Value("${journal.dir:data/journal}")
+    private String dir;
+
+    @Value("${journal.segment-size:64MB}")
+    private DataSize segmentSize;
+
+    @Value("${journal.max-segments:64}")
+    private int maxSegments;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final CRC32C writeCrc = new CRC32C();
+    private Path directory;
+    private int capacity;
+    private volatile Segment active;
+    private Counter eventsCounter;
+    private Timer syncTimer;
+
+    public record Entry(long position, long receivedAt, long roomId, long playerId, GameplayEvent event) {
+    }
+
+    // next is where the following read continues, also when nothing was found
+    public record Batch(List<Entry> entries, long next) {
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        directory = Path.of(dir);
+        Files.createDirectories(directory);
+        // Offsets must fit in the low 32 bits of a position
+        capacity = (int) Math.min(segmentSize.toBytes(), Integer.MAX_VALUE) / RECORD * RECORD;
+
+        List<Long> segments = segmentIndexes();
+        if (segments.isEmpty()) {
+            active = Segment.create(pathOf(0), 0, capacity);
+        } else {
+            long last = segments.get(segments.size() - 1);
+            active = Segment.recover(pathOf(last), last);
+            log.info("Event journal resumes segment {} at offset {}", last, active.committed);
+        }
+
+        eventsCounter = Counter.builder("journal.events")
+                .description("Gameplay events appended to the event journal")
+                .register(meterRegistry);
+        syncTimer = Timer.builder("journal.sync")
+                .description("Time to force journal writes to disk")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            active.sync();
+            active.channel.close();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void append(long roomId, long playerId, List<GameplayEvent> events) {
+        long receivedAt = System.currentTimeMillis();
+        writeLock.lock();
+        try {
+            for (GameplayEvent event : events) {
+                Segment segment = active;
+                if (segment.committed + RECORD > segment.buffer.capacity()) {
+                    segment = roll();
+                }
+                int offset = segment.committed;
+                MappedByteBuffer buffer = segment.buffer;
+                int body = offset + HEADER;
+                buffer.putLong(body, receivedAt)
+                        .putLong(body + 8, event.at())
+                        .putLong(body + 16, roomId)
+                        .putLong(body + 24, playerId)
+                        .put(body + 32, event.type().code())
+                        .putShort(body + 33, (short) event.level())
+                        .putInt(body + 35, event.value());
+                writeCrc.reset();
+                writeCrc.update(buffer.slice(body, BODY));
+                buffer.putInt(offset + 4, (int) writeCrc.getValue());
+                // Length last: recovery treats a record without it as never written
+                buffer.putInt(offset, BODY);
+                segment.committed = offset + RECORD;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not roll the event journal", e);
+        } finally {
+            writeLock.unlock();
+        }
+        eventsCounter.increment(events.size());
+    }
+
+    // Position just past the last event written; reading from here returns only newer events
+    public long end() {
+        Segment segment = active;
+        return position(segment.index, segment.committed);
+    }
+
+    public Batch read(long from, int limit) {
+        long index = from >>> 32;
+        int offset = (int) from;
+        List<Entry> entries = new ArrayList<>();
+        CRC32C crc = new CRC32C();
+        try {
+            while (entries.size() < limit) {
+                Segment current = active;
+                ByteBuffer buffer;
+                int bound;
+                if (index == current.index) {
+                    buffer = current.buffer;
+                    bound = current.committed;
+                } else if (index < current.index) {
+                    buffer = mapReadOnly(index);
+                    if (buffer == null) {
+                        // Deleted by retention: continue at the oldest segment left
+                        List<Long> segments = segmentIndexes();
+                        index = segments.isEmpty() ? current.index : Math.max(index + 1, segments.get(0));
+                        offset = 0;
+                        continue;
+                    }
+                    bound = buffer.capacity();
+                } else {
+                    break;
+                }
+
+                while (entries.size() < limit && offset + RECORD <= bound && buffer.getInt(offset) == BODY) {
+                    Entry entry = decode(buffer, index, offset, crc);
+                    if (entry == null) {
+                        break;
+                    }
+                    entries.add(entry);
+                    offset += RECORD;
+                }
+                if (entries.size() == limit || index == current.index) {
+                    break;
+                }
+                // End of a finished segment
+                index++;
+                offset = 0;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the event journal", e);
+        }
+        return new Batch(entries, position(index, offset));
+    }
+
+    @Scheduled(fixedDelayString = "${journal.sync-interval-ms:1000}")
+    public void sync() {
+        syncTimer.record(() -> active.sync());
+    }
+
+    // Called with the write lock held
+    private Segment roll() throws IOException {
+        Segment full = active;
+        full.sync();
+        full.channel.close();
+        Segment next = Segment.create(pathOf(full.index + 1), full.index + 1, capacity);
+        active = next;
+
+        List<Long> segments = segmentIndexes();
+        for (int i = 0; i < segments.size() - maxSegments; i++) {
+            // Readers still holding a mapping of it keep working until they let go
+            Files.deleteIfExists(pathOf(segments.get(i)));
+        }
+        return next;
+    }
+
+    private ByteBuffer mapReadOnly(long index) throws IOException {
+        try (FileChannel channel = FileChannel.open(pathOf(index), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    // null when the record is damaged (torn write before a crash)
+    private static Entry decode(ByteBuffer buffer, long index, int offset, CRC32C crc) {
+        int body = offset + HEADER;
+        crc.reset();
+        crc.update(buffer.slice(body, BODY));
+        if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+            return null;
+        }
+        GameplayEvent event = new GameplayEvent(GameplayEvent.Type.of(buffer.get(body + 32)),
+                buffer.getShort(body + 33), buffer.getLong(body + 8), buffer.getInt(body + 35));
+        return new Entry(position(index, offset), buffer.getLong(body), buffer.getLong(body + 16),
+                buffer.getLong(body + 24), event);
+    }
+
+    private List<Long> segmentIndexes() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path pathOf(long index) {
+        return directory.resolve(String.format("%010d%s", index, SUFFIX));
+    }
+
+    private static long position(long index, int offset) {
+        return index << 32 | offset;
+    }
+
+    private static final class Segment {
+        final long index;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        // Bytes of whole records; readers see records below it
+        volatile int committed;
+        private int synced;
+
+        private Segment(long index, FileChannel channel, MappedByteBuffer buffer, int committed) {
+            this.index = index;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.committed = committed;
+            this.synced = committed;
+        }
+
+        static Segment create(Path path, long index, int capacity) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            return new Segment(index, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity), 0);
+        }
+
+        // Resumes after the last intact record and clears whatever follows it
+        static Segment recover(Path path, long index) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            CRC32C crc = new CRC32C();
+            int offset = 0;
+            while (offset + RECORD <= buffer.capacity() && buffer.getInt(offset) == BODY
+                    && decode(buffer, index, offset, crc) != null) {
+                offset += RECORD;
+            }
+            byte[] zeros = new byte[64 * 1024];
+            for (int at = offset; at < buffer.capacity(); at += zeros.length) {
+                buffer.put(at, zeros, 0, Math.min(zeros.length, buffer.capacity() - at));
+            }
+            buffer.force();
+            return new Segment(index, channel, buffer, offset);
+        }
+
+        synchronized void sync() {
+            int upTo = committed;
+            if (upTo > synced) {
+                buffer.force(synced, upTo - synced);
+                synced = upTo;
+            }
+        }
+    }
+}
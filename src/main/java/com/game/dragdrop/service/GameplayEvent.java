@@ -0,0 +1,34 @@
+package com.game.dragdrop.service;
+
+// One thing a player did during a level, as reported by the client. at is the client's epoch millis
+public record GameplayEvent(Type type, int level, long at, int value) {
+
+    // Codes are stored in the event journal; never renumber them
+    public enum Type {
+        PLACE(1), // tile put into a slot; value = slot index
+        REMOVE(2), // tile taken back out; value = slot index
+        WRONG(3), // full answer was wrong
+        SOLVED(4), // value = milliseconds spent on the level
+        TIMEOUT(5), // time ran out; value = milliseconds spent
+        HINT(6); // hint opened
+
+        private final byte code;
+
+        Type(int code) {
+            this.code = (byte) code;
+        }
+
+        public byte code() {
+            return code;
+        }
+
+        public static Type of(byte code) {
+            for (Type type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown event type " + code);
+        }
+    }
+}
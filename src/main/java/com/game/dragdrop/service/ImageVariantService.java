@@ -0,0 +1,240 @@
+package com.game.dragdrop.service;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.game.dragdrop.repository.LevelRepository;
+import com.game.dragdrop.repository.StoredFileRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Background pipeline that turns each newly stored image into smaller,
+ * recompressed variants (see WIDTHS) stored next to the original. Uploads only
+ * enqueue work; when the queue is full the image is simply served without
+ * variants. The finished variant list is recorded on the StoredFile row and
+ * the level caches of the rooms and sets using the image are evicted.
+ * Images larger than image.variants.max-pixels are served as they are; the
+ * size is read from the header, before anything is decoded.
+ */
+@Service
+public class ImageVariantService {
+    private static final Logger log = LoggerFactory.getLogger(ImageVariantService.class);
+
+    // Max widths of the generated variants, smallest first
+    static final int[] WIDTHS = { 320, 640, 1024 };
+    private static final float JPEG_QUALITY = 0.8f;
+
+    @Value("${image.variants.threads:2}")
+    private int threads;
+
+    @Value("${image.variants.queue-capacity:100}")
+    private int queueCapacity;
+
+    // A decoded image takes 4 bytes per pixel
+    @Value("${image.variants.max-pixels:40000000}")
+    private long maxPixels;
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    @Autowired
+    private StoredFileRepository storedFileRepository;
+
+    @Autowired
+    private LevelRepository levelRepository;
+
+    @Autowired
+    private LevelCatalogService levelCatalogService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor executor;
+    private Timer processingTimer;
+    private Counter rejectedCounter;
+    private Counter oversizedCounter;
+
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), Thread.ofPlatform().name("image-variants-", 0).factory());
+        Gauge.builder("image.variants.backlog", executor, e -> e.getQueue().size())
+                .description("Images waiting for variant generation")
+                .register(meterRegistry);
+        processingTimer = Timer.builder("image.variants.processing")
+                .description("Time to generate all variants of one image")
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("image.variants.rejected")
+                .description("Images skipped because the pipeline queue was full")
+                .register(meterRegistry);
+        oversizedCounter = Counter.builder("image.variants.oversized")
+                .description("Images skipped because they have more pixels than image.variants.max-pixels")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // Never blocks the caller
+    public void submit(String hash, String url) {
+        try {
+            executor.execute(() -> processingTimer.record(() -> process(hash, url)));
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            log.warn("Variant queue full, serving {} without variants", url);
+        }
+    }
+
+    // Variant URLs by width for a stored image, from the suffixes kept in StoredFile.variants
+    public static Map<Integer, String> variantUrls(String url, String variants) {
+        Map<Integer, String> urls = new LinkedHashMap<>();
+        if (variants == null || variants.isEmpty()) {
+            return urls;
+        }
+        int dot = url.lastIndexOf('.');
+        String base = dot > url.lastIndexOf('/') ? url.substring(0, dot) : url;
+        for (String suffix : variants.split(",")) {
+            int width = Integer.parseInt(suffix.substring(1, suffix.indexOf('.')));
+            urls.put(width, base + "_" + suffix);
+        }
+        return urls;
+    }
+
+    private void process(String hash, String url) {
+        try {
+            String key = url.replace("/uploads/", "");
+            BufferedImage image;
+            Optional<StoredObject> original = storageBackend.fetch(key);
+            if (original.isEmpty()) {
+                return;
+            }
+            try (StoredObject object = original.get(); InputStream in = Channels.newInputStream(object.channel());
+                    ImageInputStream input = ImageIO.createImageInputStream(in)) {
+                image = read(input, url);
+            }
+            if (image == null) {
+                return;
+            }
+
+            boolean alpha = image.getColorModel().hasAlpha();
+            String extension = alpha ? "png" : "jpg";
+            int dot = key.lastIndexOf('.');
+            String base = dot > key.lastIndexOf('/') ? key.substring(0, dot) : key;
+
+            List<String> suffixes = new ArrayList<>();
+            for (int width : WIDTHS) {
+                if (width >= image.getWidth()) {
+                    break;
+                }
+                String suffix = "w" + width + "." + extension;
+                Path temp = Files.createTempFile("variant-", "." + extension);
+                try {
+                    write(resize(image, width, alpha), extension, temp);
+                    storageBackend.store(base + "_" + suffix, temp, alpha ? "image/png" : "image/jpeg");
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+                suffixes.add(suffix);
+            }
+            if (suffixes.isEmpty()) {
+                return;
+            }
+
+            storedFileRepository.updateVariants(hash, String.join(",", suffixes));
+            levelCatalogService.evict(levelRepository.findRoomIdsByImageUrl(url).toArray(Long[]::new));
+            levelCatalogService.evictSets(levelRepository.findLevelSetIdsByImageUrl(url).toArray(Long[]::new));
+        } catch (Exception e) {
+            log.warn("Failed to generate variants for {}", url, e);
+        }
+    }
+
+    // null when ImageIO can't decode the format or the image is over the pixel limit
+    private BufferedImage read(ImageInputStream input, String url) throws Exception {
+        Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+        if (readers == null || !readers.hasNext()) {
+            return null;
+        }
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(input, true, true);
+            long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+            if (pixels > maxPixels) {
+                oversizedCounter.increment();
+                log.warn("Serving {} without variants, {} pixels is over the limit of {}", url, pixels, maxPixels);
+                return null;
+            }
+            return reader.read(0);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    private static BufferedImage resize(BufferedImage source, int width, boolean alpha) {
+        int height = Math.max(1, Math.round((float) source.getHeight() * width / source.getWidth()));
+        BufferedImage resized = new BufferedImage(width, height,
+                alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = resized.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return resized;
+    }
+
+    private static void write(BufferedImage image, String extension, Path target) throws Exception {
+        if (!"jpg".equals(extension)) {
+            ImageIO.write(image, extension, target.toFile());
+            return;
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
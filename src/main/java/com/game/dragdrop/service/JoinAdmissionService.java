@@ -0,0 +1,187 @@
+package com.game.dragdrop.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Admission control in front of RoomStateRegistry.join, for the burst of
+ * joins that follows sharing a room code. Joins that need no database work
+ * (the player is already in the room, or the room is closed) are answered
+ * from memory. The same player joining twice at once (double click, client
+ * retry) shares one join. Everything else waits for one of a few permits,
+ * first come first served, in a queue bounded per room; a join that cannot
+ * get a permit in time is turned away with a suggested retry delay. A storm
+ * therefore turns into a steady trickle of inserts instead of every request
+ * holding a pooled connection at once.
+ */
+@Service
+public class JoinAdmissionService {
+    // Upper bound for the suggested delay, whatever the backlog
+    private static final long MAX_RETRY_AFTER_SECONDS = 30;
+
+    // Joins inserting at once, across all rooms; keep below spring.datasource.hikari.maximum-pool-size
+    @Value("${room.join.max-concurrent:4}")
+    private int maxConcurrent;
+
+    // Joins of one room waiting or running; more are rejected right away
+    @Value("${room.join.room-queue-size:100}")
+    private int roomQueueSize;
+
+    @Value("${room.join.max-wait:2s}")
+    private Duration maxWait;
+
+    @Autowired
+    private RoomStateRegistry roomStateRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<JoinKey, CompletableFuture<RoomStateRegistry.JoinResult>> inFlight = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> queuedByRoom = new ConcurrentHashMap<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private Semaphore permits;
+    private Timer waitTimer;
+    // Moving average of one admitted join, for the retry estimate
+    private volatile double averageJoinNanos = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private record JoinKey(Long roomId, String playerName) {
+    }
+
+    // Turned away; the client should try again after retryAfterSeconds
+    public static class OverloadedException extends RuntimeException {
+        private final long retryAfterSeconds;
+
+        OverloadedException(String message, long retryAfterSeconds) {
+            super(message);
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        // Fair: permits go to waiting joins in arrival order
+        permits = new Semaphore(maxConcurrent, true);
+        waitTimer = Timer.builder("room.join.wait")
+                .description("Time a join waited for an admission permit")
+                .register(meterRegistry);
+        Gauge.builder("room.join.queued", waiting, AtomicInteger::get)
+                .description("Joins waiting for an admission permit")
+                .register(meterRegistry);
+    }
+
+    public RoomStateRegistry.JoinResult join(Long roomId, String playerName) {
+        RoomStateRegistry.JoinResult known = roomStateRegistry.peekJoin(roomId, playerName);
+        if (known != null) {
+            count("memory");
+            return known;
+        }
+
+        JoinKey key = new JoinKey(roomId, playerName);
+        CompletableFuture<RoomStateRegistry.JoinResult> mine = new CompletableFuture<>();
+        CompletableFuture<RoomStateRegistry.JoinResult> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            count("coalesced");
+            return await(running);
+        }
+        try {
+            RoomStateRegistry.JoinResult result = admitted(roomId, playerName);
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private RoomStateRegistry.JoinResult admitted(Long roomId, String playerName) {
+        if (queuedByRoom.merge(roomId, 1, Integer::sum) > roomQueueSize) {
+            leave(roomId);
+            throw overloaded("Too many players joining this room at once");
+        }
+        try {
+            waiting.incrementAndGet();
+            long started = System.nanoTime();
+            boolean acquired;
+            try {
+                acquired = permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            } finally {
+                waiting.decrementAndGet();
+                waitTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+            if (!acquired) {
+                throw overloaded("Server is busy admitting players");
+            }
+
+            try {
+                long joinStarted = System.nanoTime();
+                RoomStateRegistry.JoinResult result = roomStateRegistry.join(roomId, playerName);
+                averageJoinNanos = 0.9 * averageJoinNanos + 0.1 * (System.nanoTime() - joinStarted);
+                count("admitted");
+                return result;
+            } finally {
+                permits.release();
+            }
+        } finally {
+            leave(roomId);
+        }
+    }
+
+    private void leave(Long roomId) {
+        queuedByRoom.computeIfPresent(roomId, (id, queued) -> queued > 1 ? queued - 1 : null);
+    }
+
+    private RoomStateRegistry.JoinResult await(CompletableFuture<RoomStateRegistry.JoinResult> running) {
+        try {
+            return running.get(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw overloaded("Server is busy admitting players");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw overloaded("Server is busy admitting players");
+        }
+    }
+
+    // Time to drain the current queue, plus up to a second of jitter so rejected clients don't return together
+    private OverloadedException overloaded(String message) {
+        count("rejected");
+        double drainNanos = (waiting.get() + maxConcurrent) * averageJoinNanos / maxConcurrent;
+        long seconds = (long) Math.ceil(drainNanos / TimeUnit.SECONDS.toNanos(1))
+                + ThreadLocalRandom.current().nextInt(2);
+        return new OverloadedException(message, Math.max(1, Math.min(seconds, MAX_RETRY_AFTER_SECONDS)));
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("room.join.admission", "outcome", outcome).increment();
+    }
+}
@@ -0,0 +1,127 @@
+package com.game.dragdrop.service;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnitUtil;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Cursor-based listing for tables that grow without bound. Rows are ordered
+ * by id and a page continues after the last id of the previous one
+ * ("where id > cursor"), so every page costs the same however deep the
+ * client goes. Streaming exports walk the same keyset in fixed batches, each
+ * read in its own short transaction and written out before the next one is
+ * loaded, so only one batch is ever held in memory.
+ */
+@Service
+public class KeysetQueryService {
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+    static final int STREAM_BATCH = 500;
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    private TransactionTemplate readOnly;
+    private PersistenceUnitUtil persistenceUnitUtil;
+
+    // nextCursor is null on the last page
+    public record Page<T>(List<T> items, Long nextCursor) {
+    }
+
+    @PostConstruct
+    public void init() {
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        persistenceUnitUtil = entityManagerFactory.getPersistenceUnitUtil();
+    }
+
+    public <T> Page<T> page(JpaSpecificationExecutor<T> repository, Specification<T> filter, Sort.Direction direction,
+            Long cursor, Integer limit) {
+        int size = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+        // One extra row tells whether another page exists, without a count query
+        List<T> rows = fetch(repository, filter, direction, cursor, size + 1);
+        if (rows.size() <= size) {
+            return new Page<>(rows, null);
+        }
+        List<T> items = rows.subList(0, size);
+        return new Page<>(items, idOf(items.get(size - 1)));
+    }
+
+    // Body is the page's rows (possibly mapped); the cursor for the next page travels in a header
+    public static <R> ResponseEntity<List<R>> toResponse(Page<?> page, List<R> body) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor().toString());
+        }
+        return response.body(body);
+    }
+
+    // JSON array written batch by batch; view runs inside the batch's transaction (lazy loads, DTOs)
+    public <T> StreamingResponseBody stream(JpaSpecificationExecutor<T> repository, Specification<T> filter,
+            Sort.Direction direction, Function<List<T>, List<?>> view) {
+        return (OutputStream out) -> {
+            try (JsonGenerator generator = jsonMapper.createGenerator(out)) {
+                generator.writeStartArray();
+                Long cursor = null;
+                while (true) {
+                    Long after = cursor;
+                    Batch batch = readOnly.execute(status -> {
+                        List<T> rows = fetch(repository, filter, direction, after, STREAM_BATCH);
+                        return new Batch(view.apply(rows), rows.isEmpty() ? null : idOf(rows.get(rows.size() - 1)),
+                                rows.size() == STREAM_BATCH);
+                    });
+                    for (Object row : batch.rows()) {
+                        jsonMapper.writeValue(generator, row);
+                    }
+                    generator.flush();
+                    if (!batch.more()) {
+                        break;
+                    }
+                    cursor = batch.lastId();
+                }
+                generator.writeEndArray();
+            }
+        };
+    }
+
+    private record Batch(List<?> rows, Long lastId, boolean more) {
+    }
+
+    private <T> List<T> fetch(JpaSpecificationExecutor<T> repository, Specification<T> filter,
+            Sort.Direction direction, Long cursor, int limit) {
+        Specification<T> spec = filter != null ? filter : Specification.unrestricted();
+        if (cursor != null) {
+            spec = spec.and((root, query, cb) -> direction == Sort.Direction.DESC
+                    ? cb.lessThan(root.get("id"), cursor)
+                    : cb.greaterThan(root.get("id"), cursor));
+        }
+        return repository.findBy(spec, query -> query.sortBy(Sort.by(direction, "id")).limit(limit).all());
+    }
+
+    private Long idOf(Object entity) {
+        return (Long) persistenceUnitUtil.getIdentifier(entity);
+    }
+}
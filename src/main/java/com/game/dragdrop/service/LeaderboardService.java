@@ -0,0 +1,189 @@
+package com.game.dragdrop.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.game.dragdrop.model.GamePlayer;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Live per-room leaderboard kept in memory and updated as players join and
+ * finish. A room's board is seeded from RoomStateRegistry once, after that
+ * admins read snapshots and receive rank deltas without touching game_player.
+ * Boards are kept only while someone watches the room: they go when its
+ * last leaderboard stream ends, when the room finishes or is deleted.
+ */
+@Service
+public class LeaderboardService {
+    @Autowired
+    private RoomStateRegistry roomStateRegistry;
+
+    @Autowired
+    private RoomEventService roomEventService;
+
+    private final Map<Long, Board> boards = new ConcurrentHashMap<>();
+
+    public record Standing(Long playerId, String name, int score, boolean finished, int rank) {
+    }
+
+    // Sent when a player enters the board or moves; previousRank is null for new players
+    public record RankDelta(Long playerId, String name, int score, boolean finished, int rank,
+            Integer previousRank) {
+    }
+
+    @PostConstruct
+    public void init() {
+        roomEventService.onLeaderboardUnwatched(this::evictUnwatched);
+    }
+
+    // Unwatched rooms are ranked from the registry without keeping a board
+    public List<Standing> snapshot(Long roomId) {
+        Board board = boards.get(roomId);
+        if (board == null) {
+            board = new Board();
+            board.seed(roomStateRegistry.getPlayers(roomId));
+        }
+        synchronized (board) {
+            return board.standings();
+        }
+    }
+
+    public SseEmitter subscribe(Long roomId) {
+        while (true) {
+            Board board = board(roomId);
+            // Hold the board while sending the snapshot so no delta slips in between
+            synchronized (board) {
+                if (!board.evicted) {
+                    return roomEventService.subscribeLeaderboard(roomId, board.standings());
+                }
+            }
+        }
+    }
+
+    // Called on join and finish; a no-op when nothing visible changed or nobody watches the room
+    public void update(GamePlayer player) {
+        Board board = boards.get(player.getRoomId());
+        if (board == null) {
+            return;
+        }
+        synchronized (board) {
+            // A board not seeded yet reads the player from the registry, which is updated first
+            if (!board.seeded || board.evicted) {
+                return;
+            }
+            RankDelta delta = board.upsert(new Entry(player.getId(), player.getName(), player.getScore(),
+                    player.isFinished()));
+            if (delta != null) {
+                roomEventService.publishLeaderboard(player.getRoomId(), delta);
+            }
+        }
+    }
+
+    public void evict(Long roomId) {
+        Board board = boards.remove(roomId);
+        if (board != null) {
+            synchronized (board) {
+                board.evicted = true;
+            }
+        }
+    }
+
+    private void evictUnwatched(Long roomId) {
+        Board board = boards.get(roomId);
+        if (board == null) {
+            return;
+        }
+        // Under the board lock a subscribe either registered already or finds the board evicted
+        synchronized (board) {
+            if (!roomEventService.hasLeaderboardSubscribers(roomId)) {
+                boards.remove(roomId, board);
+                board.evicted = true;
+            }
+        }
+    }
+
+    // Inserted empty and seeded under its own lock, so the registry (maybe the database) is
+    // never read inside a map update
+    private Board board(Long roomId) {
+        Board board = boards.get(roomId);
+        if (board == null) {
+            Board created = new Board();
+            board = boards.putIfAbsent(roomId, created);
+            if (board == null) {
+                board = created;
+            }
+        }
+        synchronized (board) {
+            if (!board.seeded && !board.evicted) {
+                try {
+                    board.seed(roomStateRegistry.getPlayers(roomId));
+                } catch (RuntimeException e) {
+                    boards.remove(roomId, board);
+                    board.evicted = true;
+                    throw e;
+                }
+            }
+        }
+        return board;
+    }
+
+    private record Entry(Long playerId, String name, int score, boolean finished) {
+    }
+
+    // Highest score first, ties broken by join order (player id)
+    private static final Comparator<Entry> RANKING = Comparator.comparingInt(Entry::score).reversed()
+            .thenComparing(Entry::playerId);
+
+    private static final class Board {
+        private final TreeSet<Entry> ranked = new TreeSet<>(RANKING);
+        private final Map<Long, Entry> byPlayer = new HashMap<>();
+        private boolean seeded;
+        private boolean evicted;
+
+        void seed(List<GamePlayer> players) {
+            for (GamePlayer player : players) {
+                upsert(new Entry(player.getId(), player.getName(), player.getScore(), player.isFinished()));
+            }
+            seeded = true;
+        }
+
+        // O(log n) re-insert; the rank lookup walks only the players ahead
+        RankDelta upsert(Entry entry) {
+            Entry previous = byPlayer.put(entry.playerId(), entry);
+            if (entry.equals(previous)) {
+                return null;
+            }
+            Integer previousRank = null;
+            if (previous != null) {
+                previousRank = rankOf(previous);
+                ranked.remove(previous);
+            }
+            ranked.add(entry);
+            return new RankDelta(entry.playerId(), entry.name(), entry.score(), entry.finished(), rankOf(entry),
+                    previousRank);
+        }
+
+        List<Standing> standings() {
+            List<Standing> standings = new ArrayList<>(ranked.size());
+            int rank = 1;
+            for (Entry entry : ranked) {
+                standings.add(new Standing(entry.playerId(), entry.name(), entry.score(), entry.finished(), rank++));
+            }
+            return standings;
+        }
+
+        private int rankOf(Entry entry) {
+            return ranked.headSet(entry, false).size() + 1;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.game.dragdrop.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.game.dragdrop.model.GameLevel;
+import com.game.dragdrop.model.StoredFile;
+import com.game.dragdrop.repository.LevelRepository;
+import com.game.dragdrop.repository.RoomRepository;
+import com.game.dragdrop.repository.StoredFileRepository;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Per-room level lists, cached until an admin changes a level of that room.
+ * Lists are cached together with their player-facing JSON encoding, so
+ * serving a room's levels copies bytes instead of serializing entities.
+ * Each list carries a version hash of its content, used as the ETag of the
+ * room's level bundle. Rooms playing a shared level set reference the set's
+ * cached list, so a set is loaded and held once however many rooms use it.
+ * Size and TTL limits come from spring.cache.caffeine.spec; hit, miss and
+ * eviction counts are published as cache.* metrics.
+ */
+@Service
+public class LevelCatalogService {
+    public static final String ROOM_LEVELS_CACHE = "roomLevels";
+    public static final String LEVEL_SETS_CACHE = "levelSets";
+
+    @Autowired
+    private LevelRepository levelRepository;
+
+    @Autowired
+    private StoredFileRepository storedFileRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    // Levels sorted by levelOrder; version changes whenever anything a player sees changes.
+    // json is the same list encoded for players, built once per load
+    public record RoomLevels(Long roomId, String version, List<GameLevel> levels, EncodedLevels json) {
+
+        // {"roomId":..,"version":..,"levels":[..]} with the options in the encoding's fixed order
+        public byte[] bundleJson() {
+            byte[] head = ("{\"roomId\":" + roomId + ",\"version\":\"" + version + "\",\"levels\":")
+                    .getBytes(StandardCharsets.UTF_8);
+            byte[] levelsJson = json.stable();
+            byte[] out = Arrays.copyOf(head, head.length + levelsJson.length + 1);
+            System.arraycopy(levelsJson, 0, out, head.length, levelsJson.length);
+            out[out.length - 1] = '}';
+            return out;
+        }
+    }
+
+    public record SetLevels(Long levelSetId, String version, List<GameLevel> levels, EncodedLevels json) {
+    }
+
+    // sync: players entering a room together share a single load
+    @Cacheable(cacheNames = ROOM_LEVELS_CACHE, key = "#roomId", sync = true)
+    @Transactional(readOnly = true)
+    public RoomLevels getRoomLevels(Long roomId) {
+        Long levelSetId = roomRepository.findLevelSetIdById(roomId);
+        if (levelSetId != null) {
+            SetLevels shared = getSetLevels(levelSetId);
+            return new RoomLevels(roomId, shared.version(), shared.levels(), shared.json());
+        }
+        List<GameLevel> levels = load(levelRepository.findByRoomId(roomId));
+        return new RoomLevels(roomId, version(levels), levels, EncodedLevels.encode(jsonMapper, levels));
+    }
+
+    @Transactional(readOnly = true)
+    public SetLevels getSetLevels(Long levelSetId) {
+        Cache cache = cacheManager.getCache(LEVEL_SETS_CACHE);
+        if (cache == null) {
+            return loadSet(levelSetId);
+        }
+        return cache.get(levelSetId, () -> loadSet(levelSetId));
+    }
+
+    public void evict(Long... roomIds) {
+        Cache cache = cacheManager.getCache(ROOM_LEVELS_CACHE);
+        if (cache == null) {
+            return;
+        }
+        for (Long roomId : roomIds) {
+            if (roomId != null) {
+                cache.evict(roomId);
+            }
+        }
+    }
+
+    // A changed set, and every room entry holding on to it
+    public void evictSets(Long... levelSetIds) {
+        List<Long> ids = Arrays.stream(levelSetIds).filter(Objects::nonNull).toList();
+        if (ids.isEmpty()) {
+            return;
+        }
+        Cache cache = cacheManager.getCache(LEVEL_SETS_CACHE);
+        if (cache != null) {
+            ids.forEach(cache::evict);
+        }
+        evict(roomRepository.findIdsByLevelSetIdIn(ids).toArray(Long[]::new));
+    }
+
+    private SetLevels loadSet(Long levelSetId) {
+        List<GameLevel> levels = load(levelRepository.findByLevelSetId(levelSetId));
+        return new SetLevels(levelSetId, version(levels), levels, EncodedLevels.encode(jsonMapper, levels));
+    }
+
+    // Options come with the levels in one query; cached entities outlive the session
+    private List<GameLevel> load(List<GameLevel> loaded) {
+        List<GameLevel> levels = new ArrayList<>(loaded);
+        levels.forEach(level -> Hibernate.initialize(level.getOptions()));
+        attachVariants(levels);
+        levels.sort(Comparator.comparing(GameLevel::getLevelOrder, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(GameLevel::getId));
+        return List.copyOf(levels);
+    }
+
+    // One query for the variant lists of every image in the room
+    private void attachVariants(List<GameLevel> levels) {
+        if (levels.isEmpty()) {
+            return;
+        }
+        Map<String, String> variantsByUrl = storedFileRepository
+                .findByUrlIn(levels.stream().map(GameLevel::getImageUrl).collect(Collectors.toSet())).stream()
+                .filter(stored -> stored.getVariants() != null)
+                .collect(Collectors.toMap(StoredFile::getUrl, StoredFile::getVariants));
+        for (GameLevel level : levels) {
+            level.setVariants(ImageVariantService.variantUrls(level.getImageUrl(),
+                    variantsByUrl.get(level.getImageUrl())));
+        }
+    }
+
+    private static String version(List<GameLevel> levels) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (GameLevel level : levels) {
+                String row = String.join("\u0000", Objects.toString(level.getId()), level.getImageUrl(),
+                        level.getAnswer(), Objects.toString(level.getHint()), Objects.toString(level.getLevelOrder()),
+                        Objects.toString(level.getTimeLimit()), String.join("\u0001", level.getOptions()),
+                        Objects.toString(level.getVariants()));
+                digest.update(row.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            // 128 bits are plenty to tell level sets apart
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
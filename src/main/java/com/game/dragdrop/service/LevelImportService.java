@@ -0,0 +1,308 @@
+package com.game.dragdrop.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.game.dragdrop.model.GameLevel;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Imports a whole set of levels from one zip archive: the images plus a
+ * manifest.json listing the levels, e.g.
+ * [{"image": "cat.png", "answer": "CAT", "hint": "...", "levelOrder": 1, "timeLimit": 60}].
+ * The manifest is checked up front; the rest runs in the background, one
+ * archive at a time. Images are stored in parallel, then all levels and
+ * their options are inserted in one transaction as JDBC batches. The import
+ * is all or nothing: if any image or the insert fails, the images already
+ * stored are released again. Progress is kept in memory on the node that
+ * accepted the archive.
+ */
+@Service
+public class LevelImportService {
+    private static final Logger log = LoggerFactory.getLogger(LevelImportService.class);
+
+    static final String MANIFEST = "manifest.json";
+    // Finished jobs stay queryable this long
+    private static final Duration RETENTION = Duration.ofHours(1);
+
+    @Value("${level.import.threads:4}")
+    private int threads;
+
+    @Value("${level.import.max-levels:200}")
+    private int maxLevels;
+
+    @Value("${storage.max-file-size:2MB}")
+    private DataSize maxImageSize;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private LevelSetService levelSetService;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private ExecutorService jobExecutor;
+    private ExecutorService imageExecutor;
+
+    public enum Status {
+        QUEUED, STORING_IMAGES, SAVING_LEVELS, DONE, FAILED
+    }
+
+    public record ManifestEntry(String image, String answer, String hint, Integer levelOrder, Integer timeLimit) {
+    }
+
+    public record Progress(String id, Long roomId, Status status, int total, int imagesStored, List<Long> levelIds,
+            String error) {
+    }
+
+    @PostConstruct
+    public void init() {
+        jobExecutor = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("level-import").factory());
+        imageExecutor = Executors.newFixedThreadPool(threads, Thread.ofPlatform().name("level-import-", 0).factory());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdown();
+        imageExecutor.shutdown();
+    }
+
+    // Validates the archive and queues it; IllegalArgumentException when it can't be imported
+    public Progress submit(MultipartFile archive, Long roomId) throws IOException {
+        jobs.values().removeIf(job -> job.finishedAt != null
+                && job.finishedAt.isBefore(Instant.now().minus(RETENTION)));
+
+        Path temp = Files.createTempFile("level-import-", ".zip");
+        ZipFile zip = null;
+        try {
+            archive.transferTo(temp);
+            zip = new ZipFile(temp.toFile());
+            List<ManifestEntry> entries = readManifest(zip);
+
+            Job job = new Job(UUID.randomUUID().toString(), roomId, entries.size());
+            jobs.put(job.id, job);
+            ZipFile opened = zip;
+            jobExecutor.execute(() -> run(job, opened, temp, entries));
+            return job.progress();
+        } catch (ZipException e) {
+            Files.deleteIfExists(temp);
+            throw new IllegalArgumentException("Archive is not a valid zip file");
+        } catch (IOException | RuntimeException e) {
+            if (zip != null) {
+                zip.close();
+            }
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    public Optional<Progress> getProgress(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(Job::progress);
+    }
+
+    private List<ManifestEntry> readManifest(ZipFile zip) throws IOException {
+        ZipEntry manifest = zip.getEntry(MANIFEST);
+        if (manifest == null) {
+            throw new IllegalArgumentException("Archive has no " + MANIFEST);
+        }
+        List<ManifestEntry> entries;
+        try (InputStream in = zip.getInputStream(manifest)) {
+            entries = jsonMapper.readValue(in, new TypeReference<List<ManifestEntry>>() {
+            });
+        } catch (JacksonException e) {
+            throw new IllegalArgumentException("Invalid " + MANIFEST + ": " + e.getOriginalMessage());
+        }
+        if (entries == null || entries.isEmpty()) {
+            throw new IllegalArgumentException(MANIFEST + " lists no levels");
+        }
+        if (entries.size() > maxLevels) {
+            throw new IllegalArgumentException("At most " + maxLevels + " levels per import");
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            ManifestEntry entry = entries.get(i);
+            String where = "Level " + (i + 1) + ": ";
+            if (entry.answer() == null || entry.answer().isBlank()) {
+                throw new IllegalArgumentException(where + "answer is required");
+            }
+            if (entry.image() == null || zip.getEntry(entry.image()) == null) {
+                throw new IllegalArgumentException(where + "image " + entry.image() + " not found in archive");
+            }
+            if (zip.getEntry(entry.image()).getSize() > maxImageSize.toBytes()) {
+                throw new IllegalArgumentException(where + "image " + entry.image() + " is larger than "
+                        + maxImageSize);
+            }
+        }
+        return entries;
+    }
+
+    private void run(Job job, ZipFile zip, Path temp, List<ManifestEntry> entries) {
+        long started = System.nanoTime();
+        List<String> stored = new ArrayList<>();
+        try (zip) {
+            job.status = Status.STORING_IMAGES;
+            List<Future<String>> futures = new ArrayList<>();
+            for (ManifestEntry entry : entries) {
+                futures.add(imageExecutor.submit(() -> {
+                    // After a failure the remaining images are skipped, not stored and released again
+                    if (job.error != null) {
+                        return null;
+                    }
+                    try {
+                        String url = storeImage(zip, entry.image());
+                        job.imagesStored.incrementAndGet();
+                        return url;
+                    } catch (RuntimeException | IOException e) {
+                        job.error = "Image " + entry.image() + ": " + e.getMessage();
+                        throw e;
+                    }
+                }));
+            }
+            // Every task is waited for, so each stored image is known before any rollback
+            List<String> urls = new ArrayList<>();
+            for (Future<String> future : futures) {
+                try {
+                    String url = future.get();
+                    urls.add(url);
+                    if (url != null) {
+                        stored.add(url);
+                    }
+                } catch (ExecutionException e) {
+                    urls.add(null);
+                }
+            }
+            if (job.error != null) {
+                throw new IllegalStateException(job.error);
+            }
+
+            job.status = Status.SAVING_LEVELS;
+            List<GameLevel> levels = new ArrayList<>();
+            for (int i = 0; i < entries.size(); i++) {
+                levels.add(toLevel(entries.get(i), urls.get(i), i + 1));
+            }
+            // A room playing a shared set imports into its own copy of the set, forked in the insert's
+            // transaction. Ids come from the pooled table generator, so inserts are batched (hibernate.jdbc.batch_size)
+            List<GameLevel> saved = levelSetService.addLevels(job.roomId, levels);
+
+            job.levelIds = saved.stream().map(GameLevel::getId).toList();
+            job.status = Status.DONE;
+            record(started, "imported");
+        } catch (Exception e) {
+            if (job.error == null) {
+                job.error = e.getMessage();
+            }
+            log.warn("Level import {} failed, releasing {} stored images", job.id, stored.size(), e);
+            for (String url : stored) {
+                try {
+                    storageService.deleteFile(url);
+                } catch (RuntimeException cleanup) {
+                    log.warn("Could not release {} after failed import", url, cleanup);
+                }
+            }
+            job.status = Status.FAILED;
+            record(started, "failed");
+        } finally {
+            job.finishedAt = Instant.now();
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // Leftover temp files are harmless
+            }
+        }
+    }
+
+    // Read whole (images are small) so a lying size in the zip header can't exceed the limit
+    private String storeImage(ZipFile zip, String name) throws IOException {
+        byte[] content;
+        try (InputStream in = zip.getInputStream(zip.getEntry(name))) {
+            content = in.readNBytes((int) maxImageSize.toBytes() + 1);
+        }
+        if (content.length > maxImageSize.toBytes()) {
+            throw new IllegalArgumentException("larger than " + maxImageSize);
+        }
+        String contentType = MediaTypeFactory.getMediaType(name).map(MediaType::toString).orElse(null);
+        return storageService.uploadFile(new ByteArrayInputStream(content), content.length, name, contentType);
+    }
+
+    private static GameLevel toLevel(ManifestEntry entry, String imageUrl, int position) {
+        GameLevel level = new GameLevel();
+        level.setImageUrl(imageUrl);
+        level.setAnswer(entry.answer());
+        level.setHint(entry.hint());
+        level.setLevelOrder(entry.levelOrder() != null ? entry.levelOrder() : position);
+        level.setTimeLimit(entry.timeLimit() != null ? entry.timeLimit() : 60); // Default 60s
+        level.setOptions(GameLevel.optionsFor(entry.answer()));
+        return level;
+    }
+
+    private void record(long started, String result) {
+        Timer.builder("level.import")
+                .description("Duration of a bulk level import, from queue to commit")
+                .tag("result", result)
+                .register(meterRegistry)
+                .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    }
+
+    private static final class Job {
+        final String id;
+        final Long roomId;
+        final int total;
+        final AtomicInteger imagesStored = new AtomicInteger();
+        volatile Status status = Status.QUEUED;
+        volatile String error;
+        volatile List<Long> levelIds = List.of();
+        volatile Instant finishedAt;
+
+        Job(String id, Long roomId, int total) {
+            this.id = id;
+            this.roomId = roomId;
+            this.total = total;
+        }
+
+        Progress progress() {
+            return new Progress(id, roomId, status, total, imagesStored.get(), levelIds, error);
+        }
+    }
+}
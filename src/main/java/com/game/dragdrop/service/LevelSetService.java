@@ -0,0 +1,197 @@
+package com.game.dragdrop.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.game.dragdrop.model.GameLevel;
+import com.game.dragdrop.model.LevelSet;
+import com.game.dragdrop.repository.LevelRepository;
+import com.game.dragdrop.repository.LevelSetRepository;
+import com.game.dragdrop.repository.RoomRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Reusable level sets. Rooms reference a set instead of holding their own
+ * copies of its levels. Changes made for one room of a shared set are
+ * copy-on-write: the room first gets its own copy of the set, with images
+ * shared by reference count, and only that copy changes. Changes made to a
+ * set directly (no room given) apply to every room playing it.
+ */
+@Service
+public class LevelSetService {
+    private static final Logger log = LoggerFactory.getLogger(LevelSetService.class);
+
+    @Autowired
+    private LevelSetRepository levelSetRepository;
+
+    @Autowired
+    private LevelRepository levelRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private LevelCatalogService levelCatalogService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    // copies: new level by the level it was copied from. toCopy: copies whose image could not be
+    // shared by reference and is copied once the fork has committed
+    private record Fork(Long levelSetId, Map<Long, GameLevel> copies, List<GameLevel> toCopy) {
+    }
+
+    private record Added(Fork fork, List<GameLevel> levels) {
+    }
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public List<LevelSet> findAll() {
+        return levelSetRepository.findAll(Sort.by("id"));
+    }
+
+    // With a room: the room's levels become the new set (moved, not copied) and the room plays it
+    public LevelSet create(String name, Long fromRoomId) {
+        Long currentSetId = fromRoomId != null ? roomRepository.findLevelSetIdById(fromRoomId) : null;
+        if (currentSetId != null) {
+            // The room already plays a set: save a named copy of it
+            Fork fork = fork(fromRoomId, name);
+            if (fork.levelSetId() != null) {
+                return levelSetRepository.findById(fork.levelSetId()).orElseThrow();
+            }
+        }
+        LevelSet created = transactionTemplate.execute(tx -> {
+            LevelSet saved = levelSetRepository.save(new LevelSet(name));
+            if (fromRoomId != null) {
+                levelRepository.moveRoomLevelsToSet(fromRoomId, saved.getId());
+                roomRepository.updateLevelSetId(fromRoomId, saved.getId());
+            }
+            return saved;
+        });
+        levelCatalogService.evict(fromRoomId);
+        return created;
+    }
+
+    // null detaches the room, which then plays its own levels again
+    public void assign(Long roomId, Long levelSetId) {
+        if (levelSetId != null && !levelSetRepository.existsById(levelSetId)) {
+            throw new RuntimeException("Level set not found");
+        }
+        Integer updated = transactionTemplate.execute(tx -> roomRepository.updateLevelSetId(roomId, levelSetId));
+        if (updated == null || updated == 0) {
+            throw new RuntimeException("Room not found");
+        }
+        levelCatalogService.evict(roomId);
+    }
+
+    // Saves new levels of a room, into its own copy of the set if it shares one. The fork and the insert
+    // are one transaction, so a failed insert leaves the room on the set it had
+    public List<GameLevel> addLevels(Long roomId, List<GameLevel> levels) {
+        Added added = transactionTemplate.execute(tx -> {
+            Fork fork = roomId != null ? forkLocked(roomId, null) : new Fork(null, Map.of(), List.of());
+            for (GameLevel level : levels) {
+                level.setRoomId(fork.levelSetId() == null ? roomId : null);
+                level.setLevelSetId(fork.levelSetId());
+            }
+            return new Added(fork, levelRepository.saveAll(levels));
+        });
+        copyUnshared(added.fork());
+        levelCatalogService.evict(roomId);
+        levelCatalogService.evictSets(added.fork().levelSetId());
+        return added.levels();
+    }
+
+    // The level to change when editing `level` on behalf of roomId: the room's own copy if it shares the set
+    public GameLevel writableLevel(GameLevel level, Long roomId) {
+        Long levelSetId = level.getLevelSetId();
+        if (levelSetId == null || roomId == null || !levelSetId.equals(roomRepository.findLevelSetIdById(roomId))
+                || roomRepository.countByLevelSetId(levelSetId) <= 1) {
+            return level;
+        }
+        GameLevel copy = fork(roomId, null).copies().get(level.getId());
+        if (copy == null) {
+            // Another edit for the room forked or reassigned its set meanwhile
+            throw new RuntimeException("The room's levels changed, try again");
+        }
+        return copy;
+    }
+
+    private Fork fork(Long roomId, String name) {
+        Fork fork = transactionTemplate.execute(tx -> forkLocked(roomId, name));
+        copyUnshared(fork);
+        levelCatalogService.evict(roomId);
+        return fork;
+    }
+
+    // Copies the room's set for the room and points the room at the copy; always with a name, otherwise only
+    // if other rooms share the set. Runs in the caller's transaction and holds the room row until it ends,
+    // so concurrent edits for one room fork once. Images are referenced again, not duplicated
+    private Fork forkLocked(Long roomId, String name) {
+        // Read again once locked: the locking statement may return the row as it was before the wait
+        if (roomRepository.findForUpdate(roomId).isEmpty()) {
+            return new Fork(null, Map.of(), List.of());
+        }
+        Long levelSetId = roomRepository.findLevelSetIdById(roomId);
+        if (levelSetId == null || (name == null && roomRepository.countByLevelSetId(levelSetId) <= 1)) {
+            return new Fork(levelSetId, Map.of(), List.of());
+        }
+        LevelSet source = levelSetRepository.findById(levelSetId)
+                .orElseThrow(() -> new RuntimeException("Level set not found"));
+        LevelSet copy = levelSetRepository.save(new LevelSet(name != null ? name
+                : source.getName() + " (room " + roomId + ")"));
+
+        Map<Long, GameLevel> copies = new LinkedHashMap<>();
+        List<GameLevel> toCopy = new ArrayList<>();
+        for (GameLevel level : levelRepository.findByLevelSetId(levelSetId)) {
+            GameLevel copied = new GameLevel();
+            copied.setImageUrl(level.getImageUrl());
+            copied.setAnswer(level.getAnswer());
+            copied.setHint(level.getHint());
+            copied.setLevelOrder(level.getLevelOrder());
+            copied.setTimeLimit(level.getTimeLimit());
+            copied.setOptions(new ArrayList<>(level.getOptions()));
+            copied.setLevelSetId(copy.getId());
+            if (!storageService.addReference(level.getImageUrl())) {
+                toCopy.add(copied);
+            }
+            copies.put(level.getId(), copied);
+        }
+        levelRepository.saveAll(copies.values());
+        roomRepository.updateLevelSetId(roomId, copy.getId());
+        return new Fork(copy.getId(), copies, toCopy);
+    }
+
+    // After commit, outside any transaction: storage I/O for images stored before content addressing
+    private void copyUnshared(Fork fork) {
+        for (GameLevel level : fork.toCopy()) {
+            try {
+                String imageUrl = storageService.retain(level.getImageUrl());
+                if (!imageUrl.equals(level.getImageUrl())) {
+                    transactionTemplate.execute(tx -> levelRepository.updateImageUrl(level.getId(), imageUrl));
+                    level.setImageUrl(imageUrl);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not copy image {} for level {}", level.getImageUrl(), level.getId(), e);
+            }
+        }
+    }
+}
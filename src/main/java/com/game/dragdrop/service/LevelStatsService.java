@@ -0,0 +1,118 @@
+package com.game.dragdrop.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.game.dragdrop.model.GameLevel;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Difficulty of each level, aggregated as gameplay events arrive: solve
+ * times in a fixed-size histogram, plus counts of solves, timeouts and wrong
+ * answers. Kept per level (across every room playing it) and per room and
+ * level, each table capped at level.stats.max-entries with the least used
+ * entries dropped. Nothing is read back from the player or event tables.
+ * Counts are those seen by this node since it started.
+ */
+@Service
+public class LevelStatsService {
+    @Value("${level.stats.max-entries:10000}")
+    private long maxEntries;
+
+    @Autowired
+    private LevelCatalogService levelCatalogService;
+
+    private static final Stats NONE = new Stats();
+
+    private Cache<Long, Stats> byLevel;
+    private Cache<RoomLevel, Stats> byRoomLevel;
+
+    private record RoomLevel(Long roomId, Long levelId) {
+    }
+
+    // roomId is null for the totals of a level across rooms. Percentiles are null until a solve is seen
+    public record LevelStats(Long levelId, Long roomId, long plays, long solved, long timedOut, double failureRate,
+            long wrongAttempts, double wrongPerPlay, Long solveP50Ms, Long solveP90Ms, Long solveP99Ms) {
+    }
+
+    @PostConstruct
+    public void init() {
+        byLevel = Caffeine.newBuilder().maximumSize(maxEntries).build();
+        byRoomLevel = Caffeine.newBuilder().maximumSize(maxEntries).build();
+    }
+
+    // Events of one player's batch; levels are positions in the room's level list
+    public void record(Long roomId, List<GameplayEvent> events) {
+        List<GameLevel> levels = null;
+        for (GameplayEvent event : events) {
+            if (event.type() != GameplayEvent.Type.SOLVED && event.type() != GameplayEvent.Type.TIMEOUT
+                    && event.type() != GameplayEvent.Type.WRONG) {
+                continue;
+            }
+            if (levels == null) {
+                levels = levelCatalogService.getRoomLevels(roomId).levels();
+            }
+            if (event.level() < 0 || event.level() >= levels.size()) {
+                continue;
+            }
+            Long levelId = levels.get(event.level()).getId();
+            byLevel.get(levelId, id -> new Stats()).record(event);
+            byRoomLevel.get(new RoomLevel(roomId, levelId), key -> new Stats()).record(event);
+        }
+    }
+
+    // Every level seen, hardest (highest failure rate) first
+    public List<LevelStats> levels() {
+        List<LevelStats> stats = new ArrayList<>();
+        byLevel.asMap().forEach((levelId, levelStats) -> stats.add(levelStats.snapshot(levelId, null)));
+        stats.sort(Comparator.comparingDouble(LevelStats::failureRate).reversed()
+                .thenComparing(LevelStats::levelId));
+        return stats;
+    }
+
+    // The room's levels in play order, including those nobody has reached yet
+    public List<LevelStats> room(Long roomId) {
+        List<LevelStats> stats = new ArrayList<>();
+        for (GameLevel level : levelCatalogService.getRoomLevels(roomId).levels()) {
+            Stats levelStats = byRoomLevel.getIfPresent(new RoomLevel(roomId, level.getId()));
+            stats.add((levelStats != null ? levelStats : NONE).snapshot(level.getId(), roomId));
+        }
+        return stats;
+    }
+
+    private static final class Stats {
+        final LogHistogram solveTimes = new LogHistogram();
+        final LongAdder timedOut = new LongAdder();
+        final LongAdder wrong = new LongAdder();
+
+        void record(GameplayEvent event) {
+            switch (event.type()) {
+                case SOLVED -> solveTimes.record(event.value());
+                case TIMEOUT -> timedOut.increment();
+                case WRONG -> wrong.increment();
+                default -> {
+                }
+            }
+        }
+
+        LevelStats snapshot(Long levelId, Long roomId) {
+            long solved = solveTimes.count();
+            long failed = timedOut.sum();
+            long wrongAttempts = wrong.sum();
+            long plays = solved + failed;
+            return new LevelStats(levelId, roomId, plays, solved, failed,
+                    plays == 0 ? 0 : (double) failed / plays, wrongAttempts,
+                    plays == 0 ? 0 : (double) wrongAttempts / plays,
+                    solveTimes.percentile(0.5), solveTimes.percentile(0.9), solveTimes.percentile(0.99));
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.game.dragdrop.service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.game.dragdrop.model.GameLevel;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Server-side level clock and score. A player starts each level here, which
+ * sets a deadline of the level's time limit (plus a small grace for network
+ * latency); answers are checked against the level and the deadline, and
+ * only correct answers in time earn points. The score handed to finishGame
+ * is the one kept here, not the client's. All deadlines share one
+ * TimingWheel: each player has at most one pending timeout, either the
+ * running level's deadline or, between levels, an idle timeout that drops
+ * the player's entry.
+ *
+ * Clocks live in this node's memory only; they are neither shared nor sent
+ * over the RoomEventBus. With several nodes, every /api/rooms/{id} request
+ * of a room must be routed to the same node (sticky routing per room).
+ */
+@Service
+public class LevelTimerService {
+    public static final int POINTS_PER_LEVEL = 10;
+    private static final int DEFAULT_TIME_LIMIT = 60;
+
+    @Value("${level.timer.tick:100ms}")
+    private Duration tick;
+
+    // Extra time allowed for the answer to reach the server
+    @Value("${level.timer.grace:2s}")
+    private Duration grace;
+
+    // Entries of players who stopped playing without finishing are dropped after this
+    @Value("${level.timer.idle-after:30m}")
+    private Duration idleAfter;
+
+    @Autowired
+    private LevelCatalogService levelCatalogService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<PlayerKey, PlayerClock> clocks = new ConcurrentHashMap<>();
+    private TimingWheel wheel;
+    private Counter expiredCounter;
+
+    public enum Outcome {
+        CORRECT, WRONG, EXPIRED, NOT_STARTED
+    }
+
+    // remainingMs rather than a wall-clock deadline, so client clock skew doesn't matter
+    public record Started(int level, int timeLimit, long remainingMs) {
+    }
+
+    public record Answered(Outcome outcome, int score) {
+    }
+
+    private record PlayerKey(Long roomId, Long playerId) {
+    }
+
+    @PostConstruct
+    public void init() {
+        wheel = new TimingWheel("level-timers", tick.toNanos(), TimeUnit.NANOSECONDS);
+        expiredCounter = Counter.builder("level.timer.expired")
+                .description("Levels whose time ran out before a correct answer")
+                .register(meterRegistry);
+        Gauge.builder("level.timer.pending", this, service -> service.wheel.pending())
+                .description("Deadlines and idle timeouts waiting in the timing wheel")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        wheel.close();
+    }
+
+    // IllegalArgumentException when the room has no such level, IllegalStateException
+    // when the player already solved it or its time ran out: a level is timed once
+    public Started start(Long roomId, Long playerId, int level) {
+        List<GameLevel> levels = levelCatalogService.getRoomLevels(roomId).levels();
+        if (level < 0 || level >= levels.size()) {
+            throw new IllegalArgumentException("Level " + level + " not found in room " + roomId);
+        }
+        Integer configured = levels.get(level).getTimeLimit();
+        int timeLimit = configured != null ? configured : DEFAULT_TIME_LIMIT;
+        long allowedNanos = TimeUnit.SECONDS.toNanos(timeLimit) + grace.toNanos();
+
+        PlayerKey key = new PlayerKey(roomId, playerId);
+        while (true) {
+            PlayerClock clock = clocks.computeIfAbsent(key, PlayerClock::new);
+            long remainingMs;
+            synchronized (clock) {
+                if (clock.dropped) {
+                    // Lost a race with the idle timeout; it is gone from the map now
+                    continue;
+                }
+                long now = System.nanoTime();
+                if (clock.running && clock.level == level && clock.deadline - now > 0) {
+                    // Started again (reload, retry): same clock, the time left on it
+                    return new Started(level, timeLimit, TimeUnit.NANOSECONDS.toMillis(clock.deadline - now));
+                }
+                if (clock.running && clock.deadline - now <= 0) {
+                    // The wheel may not have fired yet; the deadline decides
+                    clock.expireRunning();
+                }
+                if (clock.solved.get(level)) {
+                    throw new IllegalStateException("Level " + level + " is already solved");
+                }
+                if (clock.closed.get(level)) {
+                    throw new IllegalStateException("Time is up for level " + level);
+                }
+                if (clock.running) {
+                    // Moving on leaves the running level unsolved for good
+                    clock.closed.set(clock.level);
+                }
+                clock.cancelTimeout();
+                long attempt = ++clock.attempt;
+                clock.level = level;
+                clock.running = true;
+                clock.deadline = now + allowedNanos;
+                clock.timeout = wheel.schedule(() -> expire(clock, attempt), allowedNanos, TimeUnit.NANOSECONDS);
+                remainingMs = TimeUnit.SECONDS.toMillis(timeLimit);
+            }
+            meterRegistry.counter("level.timer.started").increment();
+            return new Started(level, timeLimit, remainingMs);
+        }
+    }
+
+    public Answered answer(Long roomId, Long playerId, int level, String answer) {
+        PlayerClock clock = clocks.get(new PlayerKey(roomId, playerId));
+        Answered answered;
+        if (clock == null) {
+            answered = new Answered(Outcome.NOT_STARTED, 0);
+        } else {
+            answered = clock.answer(level, answer);
+        }
+        meterRegistry.counter("level.timer.answers", "outcome", answered.outcome().name()).increment();
+        return answered;
+    }
+
+    // The validated score, or null when there is no entry (already finished, or
+    // dropped as idle); the player's entry is dropped
+    public Integer finish(Long roomId, Long playerId) {
+        PlayerClock clock = clocks.remove(new PlayerKey(roomId, playerId));
+        if (clock == null) {
+            return null;
+        }
+        synchronized (clock) {
+            clock.dropped = true;
+            clock.cancelTimeout();
+            return clock.score;
+        }
+    }
+
+    private void expire(PlayerClock clock, long attempt) {
+        synchronized (clock) {
+            if (clock.attempt == attempt && clock.running) {
+                clock.expireRunning();
+            }
+        }
+    }
+
+    // Same normalisation as the client: words of letters and digits, upper case
+    static String normalize(String answer) {
+        return Arrays.stream(answer.trim().split("\\s+"))
+                .map(word -> word.replaceAll("[^A-Za-z0-9]", ""))
+                .filter(word -> !word.isEmpty())
+                .collect(Collectors.joining(" "))
+                .toUpperCase(Locale.ROOT);
+    }
+
+    private final class PlayerClock {
+        final PlayerKey key;
+        final BitSet solved = new BitSet();
+        // Levels whose time ran out or that were left for another one
+        final BitSet closed = new BitSet();
+        int score;
+        int level = -1;
+        long attempt;
+        boolean running;
+        long deadline;
+        boolean dropped;
+        TimingWheel.Timeout timeout;
+
+        PlayerClock(PlayerKey key) {
+            this.key = key;
+        }
+
+        synchronized Answered answer(int answeredLevel, String answer) {
+            if (dropped || answeredLevel != level) {
+                return new Answered(Outcome.NOT_STARTED, score);
+            }
+            if (solved.get(level)) {
+                // Repeated submission of a solved level: same answer, no extra points
+                return new Answered(Outcome.CORRECT, score);
+            }
+            if (!running || System.nanoTime() - deadline > 0) {
+                // The wheel may not have fired yet; the deadline decides
+                if (running) {
+                    expireRunning();
+                }
+                return new Answered(Outcome.EXPIRED, score);
+            }
+            List<GameLevel> levels = levelCatalogService.getRoomLevels(key.roomId()).levels();
+            if (level >= levels.size()) {
+                // Levels changed by an admin since the start
+                return new Answered(Outcome.NOT_STARTED, score);
+            }
+            GameLevel current = levels.get(level);
+            if (answer == null || !normalize(answer).equals(normalize(current.getAnswer()))) {
+                return new Answered(Outcome.WRONG, score);
+            }
+            solved.set(level);
+            score += POINTS_PER_LEVEL;
+            running = false;
+            idleAfter(attempt);
+            return new Answered(Outcome.CORRECT, score);
+        }
+
+        // Called with the clock locked, when the running level's time is up
+        void expireRunning() {
+            running = false;
+            closed.set(level);
+            expiredCounter.increment();
+            idleAfter(attempt);
+        }
+
+        // Called with the clock locked, when no level is running
+        void idleAfter(long idleAttempt) {
+            cancelTimeout();
+            timeout = wheel.schedule(() -> {
+                synchronized (this) {
+                    if (attempt == idleAttempt && !running && !dropped) {
+                        dropped = true;
+                        clocks.remove(key, this);
+                    }
+                }
+            }, idleAfter.toNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        void cancelTimeout() {
+            if (timeout != null) {
+                timeout.cancel();
+                timeout = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.game.dragdrop.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.game.dragdrop.model.GameLevel;
+
+// What a player is sent for a level. Options come last, so the encoded form can be split before them.
+// Never the answer itself: only the length of each of its words, for the slots; answers are checked
+// by LevelTimerService.
+@JsonPropertyOrder({ "id", "imageUrl", "wordLengths", "hint", "levelOrder", "timeLimit", "variants", "options" })
+public record LevelView(Long id, String imageUrl, List<Integer> wordLengths, String hint, Integer levelOrder,
+        Integer timeLimit, Map<Integer, String> variants, List<String> options) {
+
+    public static LevelView of(GameLevel level, List<String> options) {
+        return new LevelView(level.getId(), level.getImageUrl(), wordLengths(level.getAnswer()), level.getHint(),
+                level.getLevelOrder(), level.getTimeLimit(), level.getVariants(), options);
+    }
+
+    // Words as the answer is compared: letters and digits only
+    static List<Integer> wordLengths(String answer) {
+        if (answer == null) {
+            return List.of();
+        }
+        String normalized = LevelTimerService.normalize(answer);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        return Arrays.stream(normalized.split(" ")).map(String::length).toList();
+    }
+}
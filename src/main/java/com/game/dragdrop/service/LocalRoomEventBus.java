@@ -0,0 +1,43 @@
+package com.game.dragdrop.service;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// In-process bus for a single node; the default
+@Component
+@ConditionalOnProperty(name = "room.bus", havingValue = "local", matchIfMissing = true)
+public class LocalRoomEventBus implements RoomEventBus {
+    private static final Logger log = LoggerFactory.getLogger(LocalRoomEventBus.class);
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final List<Consumer<RoomEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(RoomEvent event) {
+        RoomEvent stamped = event.origin() != null ? event : event.withOrigin(nodeId);
+        for (Consumer<RoomEvent> listener : listeners) {
+            try {
+                listener.accept(stamped);
+            } catch (RuntimeException e) {
+                log.warn("Room event listener failed for {}", stamped, e);
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<RoomEvent> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+}
@@ -0,0 +1,108 @@
+package com.game.dragdrop.service;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+// Files under upload.dir; the default backend
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local", matchIfMissing = true)
+public class LocalStorageBackend implements StorageBackend {
+    @Value("${upload.dir:src/main/resources/static/uploads}")
+    private String uploadDir;
+
+    private Path root;
+
+    // Create upload directory if it doesn't exist
+    @PostConstruct
+    public void init() {
+        try {
+            root = Paths.get(uploadDir).toAbsolutePath().normalize();
+            Files.createDirectories(root);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to create upload directory", e);
+        }
+    }
+
+    @Override
+    public void store(String key, Path source, String contentType) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        try {
+            // Same file system: a rename, nothing is copied
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Temp dir on another device: kernel-side channel copy into a temp name, then rename
+            Path partial = target.resolveSibling(target.getFileName() + ".part");
+            try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                    FileChannel out = FileChannel.open(partial, StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long size = in.size();
+                for (long position = 0; position < size;) {
+                    position += in.transferTo(position, size - position, out);
+                }
+            }
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+            Files.deleteIfExists(source);
+        }
+    }
+
+    @Override
+    public Optional<StoredObject> fetch(String key) throws IOException {
+        Path file = resolve(key);
+        try {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            long size = channel.size();
+            return Optional.of(new StoredObject() {
+                @Override
+                public long size() {
+                    return size;
+                }
+
+                @Override
+                public ReadableByteChannel channel() {
+                    return channel;
+                }
+
+                @Override
+                public Path localPath() {
+                    return file;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    channel.close();
+                }
+            });
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    private Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root)) {
+            throw new IllegalArgumentException("Invalid storage key: " + key);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,57 @@
+package com.game.dragdrop.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Fixed-size histogram of durations in milliseconds. Buckets grow
+ * geometrically by 8%, from 100 ms up to one hour, so any percentile is
+ * off by at most one bucket width (8%) while the whole histogram stays at
+ * about a kilobyte however many values it has seen.
+ */
+final class LogHistogram {
+    private static final long MIN_MS = 100;
+    private static final long MAX_MS = 3_600_000;
+    private static final double RATIO = 1.08;
+    // Upper bound of each bucket; values above the last one go to an overflow bucket
+    private static final long[] BOUNDS;
+
+    static {
+        List<Long> bounds = new ArrayList<>();
+        for (double bound = MIN_MS; bound < MAX_MS; bound *= RATIO) {
+            bounds.add(Math.round(bound));
+        }
+        bounds.add(MAX_MS);
+        BOUNDS = bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private final long[] counts = new long[BOUNDS.length + 1];
+    private long total;
+
+    synchronized void record(long millis) {
+        int index = Arrays.binarySearch(BOUNDS, Math.max(0, millis));
+        counts[index >= 0 ? index : -index - 1]++;
+        total++;
+    }
+
+    synchronized long count() {
+        return total;
+    }
+
+    // Upper bound of the bucket holding the given quantile (0..1); null when empty
+    synchronized Long percentile(double quantile) {
+        if (total == 0) {
+            return null;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return i < BOUNDS.length ? BOUNDS[i] : MAX_MS;
+            }
+        }
+        return MAX_MS;
+    }
+}
@@ -0,0 +1,373 @@
+package com.game.dragdrop.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Bus shared by several nodes through a Redis pub/sub channel. Speaks the
+ * plain RESP protocol over two sockets: one for PUBLISH, one held by a
+ * subscriber thread that reconnects when the broker goes away. Events are
+ * sent as JSON; a node skips its own events coming back from the broker,
+ * since its listeners already ran when it published them. Events sent while
+ * a node is disconnected are not replayed.
+ *
+ * publish never waits for the broker: local listeners run on the caller's
+ * thread, and the event is queued for a sender thread that PUBLISHes
+ * whatever is queued in one round trip. When the broker is slow or down and
+ * the queue is full, new events are dropped and counted (room.bus.dropped).
+ */
+@Component
+@ConditionalOnProperty(name = "room.bus", havingValue = "redis")
+public class RedisRoomEventBus implements RoomEventBus {
+    private static final Logger log = LoggerFactory.getLogger(RedisRoomEventBus.class);
+    private static final int CONNECT_TIMEOUT_MS = 5000;
+    private static final long RECONNECT_DELAY_MS = 1000;
+    // Replies to PUBLISH; the subscriber connection waits without a limit
+    private static final int PUBLISH_READ_TIMEOUT_MS = 5000;
+    private static final byte[] PUBLISH = "PUBLISH".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SUBSCRIBE = "SUBSCRIBE".getBytes(StandardCharsets.US_ASCII);
+
+    @Value("${room.bus.redis.host:localhost}")
+    private String host;
+
+    @Value("${room.bus.redis.port:6379}")
+    private int port;
+
+    @Value("${room.bus.redis.channel:dragdrop:room-events}")
+    private String channel;
+
+    // Events waiting for the sender thread; beyond this they are dropped
+    @Value("${room.bus.redis.queue-size:10000}")
+    private int queueSize = 10000;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final List<Consumer<RoomEvent>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private BlockingQueue<byte[]> outbox;
+    // Used by the sender thread only
+    private Connection publisher;
+    private Thread senderThread;
+
+    private volatile boolean running;
+    private volatile Connection subscriber;
+    private Thread subscriberThread;
+
+    public RedisRoomEventBus() {
+    }
+
+    // For use outside Spring, e.g. against a local stand-in
+    public RedisRoomEventBus(String host, int port, String channel, int queueSize) {
+        this.host = host;
+        this.port = port;
+        this.channel = channel;
+        this.queueSize = queueSize;
+    }
+
+    @PostConstruct
+    public void start() {
+        outbox = new ArrayBlockingQueue<>(queueSize);
+        if (meterRegistry != null) {
+            FunctionCounter.builder("room.bus.dropped", dropped, AtomicLong::get)
+                    .description("Room events not sent to other nodes because the send queue was full")
+                    .register(meterRegistry);
+            Gauge.builder("room.bus.queued", outbox, BlockingQueue::size)
+                    .description("Room events waiting to be sent to other nodes")
+                    .register(meterRegistry);
+        }
+        running = true;
+        senderThread = Thread.ofPlatform().daemon().name("room-bus-publisher").start(this::sendLoop);
+        subscriberThread = Thread.ofPlatform().daemon().name("room-bus-subscriber").start(this::subscribeLoop);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        closeQuietly(subscriber);
+        if (subscriberThread != null) {
+            subscriberThread.interrupt();
+        }
+        if (senderThread != null) {
+            senderThread.interrupt();
+        }
+    }
+
+    @Override
+    public void publish(RoomEvent event) {
+        RoomEvent stamped = event.origin() != null ? event : event.withOrigin(nodeId);
+        dispatch(stamped);
+
+        if (!outbox.offer(jsonMapper.writeValueAsBytes(stamped))) {
+            long count = dropped.incrementAndGet();
+            if (count == 1 || count % 1000 == 0) {
+                log.warn("Room event send queue full, {} events not sent to other nodes so far", count);
+            }
+        }
+    }
+
+    // Events dropped because the send queue was full
+    public long droppedEvents() {
+        return dropped.get();
+    }
+
+    @Override
+    public void subscribe(Consumer<RoomEvent> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    private void sendLoop() {
+        byte[] channelName = channel.getBytes(StandardCharsets.UTF_8);
+        List<byte[]> batch = new ArrayList<>();
+        try {
+            while (running) {
+                batch.add(outbox.take());
+                outbox.drainTo(batch);
+                // Kept until the broker took it; a broker restart mid-batch may send some twice,
+                // which the idempotent listeners on other nodes absorb
+                while (!send(channelName, batch)) {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // Stopping
+        } finally {
+            closeQuietly(publisher);
+            publisher = null;
+        }
+    }
+
+    // Pipelined: every PUBLISH is written, then every reply read
+    private boolean send(byte[] channelName, List<byte[]> batch) {
+        // One retry on a fresh connection covers a broker restart between publishes
+        for (int attempt = 1; attempt <= 2; attempt++) {
+            try {
+                if (publisher == null) {
+                    publisher = Connection.open(host, port);
+                    publisher.readTimeout(PUBLISH_READ_TIMEOUT_MS);
+                }
+                for (byte[] payload : batch) {
+                    publisher.write(PUBLISH, channelName, payload);
+                }
+                publisher.flush();
+                for (int i = 0; i < batch.size(); i++) {
+                    publisher.read();
+                }
+                return true;
+            } catch (IOException e) {
+                closeQuietly(publisher);
+                publisher = null;
+                if (attempt == 2 && running) {
+                    log.warn("{} room events not sent to other nodes yet: {}", batch.size(), e.getMessage());
+                }
+            }
+        }
+        return false;
+    }
+
+    private void subscribeLoop() {
+        while (running) {
+            try (Connection connection = Connection.open(host, port)) {
+                subscriber = connection;
+                connection.command(SUBSCRIBE, channel.getBytes(StandardCharsets.UTF_8));
+                while (running) {
+                    // ["message", channel, payload]; subscribe confirmations are skipped
+                    if (connection.read() instanceof List<?> reply && reply.size() == 3
+                            && reply.get(2) instanceof byte[] payload
+                            && "message".equals(new String((byte[]) reply.get(0), StandardCharsets.US_ASCII))) {
+                        receive(payload);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Room event subscription lost, reconnecting: {}", e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void receive(byte[] payload) {
+        RoomEvent event;
+        try {
+            event = jsonMapper.readValue(payload, RoomEvent.class);
+        } catch (RuntimeException e) {
+            log.warn("Skipping unreadable room event: {}", e.getMessage());
+            return;
+        }
+        if (!nodeId.equals(event.origin())) {
+            dispatch(event);
+        }
+    }
+
+    private void dispatch(RoomEvent event) {
+        for (Consumer<RoomEvent> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                log.warn("Room event listener failed for {}", event, e);
+            }
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+                // Already broken
+            }
+        }
+    }
+
+    // Minimal RESP client: commands as arrays of bulk strings, replies parsed recursively
+    private static final class Connection implements Closeable {
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+
+        private Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new BufferedInputStream(socket.getInputStream());
+            this.out = new BufferedOutputStream(socket.getOutputStream());
+        }
+
+        static Connection open(String host, int port) throws IOException {
+            Socket socket = new Socket();
+            try {
+                socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MS);
+                socket.setTcpNoDelay(true);
+                return new Connection(socket);
+            } catch (IOException e) {
+                socket.close();
+                throw e;
+            }
+        }
+
+        void readTimeout(int millis) throws IOException {
+            socket.setSoTimeout(millis);
+        }
+
+        void command(byte[]... args) throws IOException {
+            write(args);
+            flush();
+        }
+
+        // Buffered until flush, for pipelining
+        void write(byte[]... args) throws IOException {
+            out.write(('*' + Integer.toString(args.length) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            for (byte[] arg : args) {
+                out.write(('$' + Integer.toString(arg.length) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                out.write(arg);
+                out.write('\r');
+                out.write('\n');
+            }
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+
+        Object read() throws IOException {
+            int type = in.read();
+            if (type == -1) {
+                throw new EOFException("Connection closed by broker");
+            }
+            String line = readLine();
+            switch (type) {
+                case '+':
+                    return line;
+                case '-':
+                    throw new IOException("Broker error: " + line);
+                case ':':
+                    return Long.parseLong(line);
+                case '$': {
+                    int length = Integer.parseInt(line);
+                    if (length < 0) {
+                        return null;
+                    }
+                    byte[] data = in.readNBytes(length);
+                    if (data.length < length) {
+                        throw new EOFException("Connection closed by broker");
+                    }
+                    readLine();
+                    return data;
+                }
+                case '*': {
+                    int count = Integer.parseInt(line);
+                    if (count < 0) {
+                        return null;
+                    }
+                    List<Object> items = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        items.add(read());
+                    }
+                    return items;
+                }
+                default:
+                    throw new IOException("Unexpected reply type " + (char) type);
+            }
+        }
+
+        private String readLine() throws IOException {
+            StringBuilder line = new StringBuilder();
+            for (int b; (b = in.read()) != '\r';) {
+                if (b == -1) {
+                    throw new EOFException("Connection closed by broker");
+                }
+                line.append((char) b);
+            }
+            in.read(); // '\n'
+            return line.toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.game.dragdrop.service;
+
+import java.time.LocalDateTime;
+
+import com.game.dragdrop.model.GamePlayer;
+import com.game.dragdrop.model.GameRoom;
+
+/**
+ * A room lifecycle or score change, as published on the RoomEventBus.
+ * origin is the id of the node that made the change; fields that don't
+ * apply to the type are null.
+ */
+public record RoomEvent(Type type, Long roomId, String origin, String status, String roomName,
+        LocalDateTime createdAt, Long playerId, String playerName, Integer score, Boolean finished) {
+
+    public enum Type {
+        ROOM_CREATED, ROOM_STATUS, ROOM_DELETED, PLAYER_JOINED, PLAYER_FINISHED
+    }
+
+    public static RoomEvent roomCreated(GameRoom room) {
+        return new RoomEvent(Type.ROOM_CREATED, room.getId(), null, room.getStatus(), room.getName(),
+                room.getCreatedAt(), null, null, null, null);
+    }
+
+    public static RoomEvent status(Long roomId, String status) {
+        return new RoomEvent(Type.ROOM_STATUS, roomId, null, status, null, null, null, null, null, null);
+    }
+
+    public static RoomEvent roomDeleted(Long roomId) {
+        return new RoomEvent(Type.ROOM_DELETED, roomId, null, null, null, null, null, null, null, null);
+    }
+
+    public static RoomEvent playerJoined(GamePlayer player) {
+        return forPlayer(Type.PLAYER_JOINED, player);
+    }
+
+    public static RoomEvent playerFinished(GamePlayer player) {
+        return forPlayer(Type.PLAYER_FINISHED, player);
+    }
+
+    public RoomEvent withOrigin(String origin) {
+        return new RoomEvent(type, roomId, origin, status, roomName, createdAt, playerId, playerName, score,
+                finished);
+    }
+
+    public GameRoom toRoom() {
+        GameRoom room = new GameRoom(roomName);
+        room.setId(roomId);
+        room.setCreatedAt(createdAt);
+        room.setActive(true);
+        room.setStatus(status);
+        return room;
+    }
+
+    public GamePlayer toPlayer() {
+        GamePlayer player = new GamePlayer(playerName, roomId);
+        player.setId(playerId);
+        player.setScore(score != null ? score : 0);
+        player.setFinished(Boolean.TRUE.equals(finished));
+        return player;
+    }
+
+    private static RoomEvent forPlayer(Type type, GamePlayer player) {
+        return new RoomEvent(type, player.getRoomId(), null, null, null, null, player.getId(), player.getName(),
+                player.getScore(), player.isFinished());
+    }
+}
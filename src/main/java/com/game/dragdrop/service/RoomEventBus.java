@@ -0,0 +1,20 @@
+package com.game.dragdrop.service;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries RoomEvents to every node serving rooms. Listeners on the publishing
+ * node are called synchronously, before publish returns; other nodes receive
+ * the event asynchronously, in publish order per node. Delivery is best
+ * effort: the database stays the source of truth for nodes that miss events.
+ */
+public interface RoomEventBus {
+
+    // Stamps the event with this node's id unless it already carries an origin
+    void publish(RoomEvent event);
+
+    void subscribe(Consumer<RoomEvent> listener);
+
+    // Identifies this node as an event origin
+    String nodeId();
+}
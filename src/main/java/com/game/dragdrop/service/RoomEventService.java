@@ -0,0 +1,168 @@
+package com.game.dragdrop.service;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Server-Sent Event streams per room. The status channel pushes room status
+ * changes (WAITING -> PLAYING -> FINISHED) to waiting players so they no
+ * longer poll /api/rooms/{id}/status; the leaderboard channel pushes rank
+ * changes to admins watching a room.
+ */
+@Service
+public class RoomEventService {
+    // Long enough for a lobby to fill up; clients fall back to polling after it
+    private static final long EMITTER_TIMEOUT_MS = 30 * 60 * 1000L;
+
+    private final Channel statusChannel = new Channel("status");
+    private final Channel leaderboardChannel = new Channel("leaderboard");
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @PostConstruct
+    public void init() {
+        statusChannel.register(meterRegistry);
+        leaderboardChannel.register(meterRegistry);
+    }
+
+    public SseEmitter subscribe(Long roomId, String currentStatus) {
+        // Send the current status right away so a transition that happened
+        // between join and subscribe is not missed
+        return statusChannel.subscribe(roomId, "status", Map.of("status", currentStatus));
+    }
+
+    public void publishStatus(Long roomId, String status) {
+        statusChannel.publish(roomId, "status", Map.of("status", status));
+        if ("FINISHED".equals(status)) {
+            statusChannel.close(roomId);
+        }
+    }
+
+    public SseEmitter subscribeLeaderboard(Long roomId, Object snapshot) {
+        return leaderboardChannel.subscribe(roomId, "snapshot", snapshot);
+    }
+
+    public void publishLeaderboard(Long roomId, Object delta) {
+        leaderboardChannel.publish(roomId, "rank", delta);
+    }
+
+    public boolean hasLeaderboardSubscribers(Long roomId) {
+        return leaderboardChannel.subscribers.containsKey(roomId);
+    }
+
+    // Called with the room id after its last leaderboard stream ended
+    public void onLeaderboardUnwatched(Consumer<Long> listener) {
+        leaderboardChannel.unwatched = listener;
+    }
+
+    // Ends every stream of a room, e.g. when the room is deleted
+    public void closeRoom(Long roomId) {
+        statusChannel.close(roomId);
+        leaderboardChannel.close(roomId);
+    }
+
+    private static final class Channel {
+        private final String name;
+        private final Map<Long, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+        private final AtomicInteger connections = new AtomicInteger();
+        private Timer fanOutTimer;
+        private volatile Consumer<Long> unwatched = roomId -> {
+        };
+
+        Channel(String name) {
+            this.name = name;
+        }
+
+        void register(MeterRegistry registry) {
+            Gauge.builder("room.events.connections", connections, AtomicInteger::get)
+                    .description("Open room event streams")
+                    .tag("channel", name)
+                    .register(registry);
+            fanOutTimer = Timer.builder("room.events.fanout")
+                    .description("Time to push one event to every subscriber of a room")
+                    .tag("channel", name)
+                    .register(registry);
+        }
+
+        SseEmitter subscribe(Long roomId, String eventName, Object initialData) {
+            SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+            // Added inside compute, so it can't land in a set remove() is dropping
+            subscribers.compute(roomId, (id, emitters) -> {
+                Set<SseEmitter> set = emitters != null ? emitters : ConcurrentHashMap.newKeySet();
+                set.add(emitter);
+                return set;
+            });
+            connections.incrementAndGet();
+
+            emitter.onCompletion(() -> remove(roomId, emitter));
+            emitter.onTimeout(emitter::complete);
+            emitter.onError(e -> remove(roomId, emitter));
+
+            send(roomId, emitter, eventName, initialData);
+            return emitter;
+        }
+
+        void publish(Long roomId, String eventName, Object data) {
+            Set<SseEmitter> emitters = subscribers.get(roomId);
+            if (emitters == null || emitters.isEmpty()) {
+                return;
+            }
+            fanOutTimer.record(() -> {
+                for (SseEmitter emitter : emitters) {
+                    send(roomId, emitter, eventName, data);
+                }
+            });
+        }
+
+        void close(Long roomId) {
+            Set<SseEmitter> emitters = subscribers.remove(roomId);
+            if (emitters == null) {
+                return;
+            }
+            for (SseEmitter emitter : emitters) {
+                if (emitters.remove(emitter)) {
+                    connections.decrementAndGet();
+                }
+                emitter.complete();
+            }
+        }
+
+        private void send(Long roomId, SseEmitter emitter, String eventName, Object data) {
+            try {
+                emitter.send(SseEmitter.event().name(eventName).data(data));
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; drop it so the next fan-out skips it
+                remove(roomId, emitter);
+            }
+        }
+
+        // The room's entry goes with its last subscriber; the listener runs outside the map update
+        private void remove(Long roomId, SseEmitter emitter) {
+            boolean[] last = new boolean[1];
+            subscribers.computeIfPresent(roomId, (id, emitters) -> {
+                if (emitters.remove(emitter)) {
+                    connections.decrementAndGet();
+                    last[0] = emitters.isEmpty();
+                }
+                return emitters.isEmpty() ? null : emitters;
+            });
+            if (last[0]) {
+                unwatched.accept(roomId);
+            }
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.game.dragdrop.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.game.dragdrop.model.GameLevel;
+import com.game.dragdrop.model.GamePlayer;
+import com.game.dragdrop.model.GameRoom;
+import com.game.dragdrop.model.RoomArchive;
+import com.game.dragdrop.repository.LevelRepository;
+import com.game.dragdrop.repository.PlayerRepository;
+import com.game.dragdrop.repository.RoomArchiveRepository;
+import com.game.dragdrop.repository.RoomRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Retires old rooms so game_room and game_player stop growing. Rooms that
+ * finished, or that never finished and saw no join for a long time, are
+ * compacted into one room_archive row each; their live rows are deleted in
+ * the same transaction, together with the levels the rooms owned; their
+ * images are released once that commits. Level sets stay, they can be
+ * assigned to other rooms. Work is done in small batches with a pause in
+ * between and a cap per run, so a backlog is worked off over several runs
+ * instead of competing with live traffic. Runs on its own thread, so the
+ * pauses never hold up the shared scheduler that flushes room state.
+ */
+@Service
+public class RoomReaperService {
+    private static final Logger log = LoggerFactory.getLogger(RoomReaperService.class);
+
+    @Value("${room.reaper.enabled:true}")
+    private boolean enabled;
+
+    // Age is measured from room creation
+    @Value("${room.reaper.finished-after:6h}")
+    private Duration finishedAfter;
+
+    @Value("${room.reaper.idle-after:48h}")
+    private Duration idleAfter;
+
+    @Value("${room.reaper.interval-ms:300000}")
+    private long intervalMs;
+
+    @Value("${room.reaper.batch-size:100}")
+    private int batchSize;
+
+    @Value("${room.reaper.batch-pause:200ms}")
+    private Duration batchPause;
+
+    @Value("${room.reaper.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private PlayerRepository playerRepository;
+
+    @Autowired
+    private RoomArchiveRepository roomArchiveRepository;
+
+    @Autowired
+    private LevelRepository levelRepository;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private LevelCatalogService levelCatalogService;
+
+    @Autowired
+    private RoomStateRegistry roomStateRegistry;
+
+    @Autowired
+    private RoomEventBus roomEventBus;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private TransactionTemplate transactionTemplate;
+    private ScheduledExecutorService scheduler;
+    private Timer runTimer;
+    private Counter playersCounter;
+    private Counter skippedCounter;
+
+    public record Result(int rooms, int players, int skipped) {
+    }
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        runTimer = Timer.builder("room.reaper.run")
+                .description("Duration of a reaper run, pauses between batches included")
+                .register(meterRegistry);
+        playersCounter = Counter.builder("room.reaper.players")
+                .description("Player rows compacted into room archives")
+                .register(meterRegistry);
+        skippedCounter = Counter.builder("room.reaper.skipped")
+                .description("Reapable rooms left for a later run because they had unflushed changes")
+                .register(meterRegistry);
+        if (enabled) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("room-reaper").factory());
+            scheduler.scheduleWithFixedDelay(this::reap, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            // A run stops at its next pause; every finished batch has committed
+            scheduler.shutdownNow();
+        }
+    }
+
+    public synchronized Result reap() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime finishedBefore = now.minus(finishedAfter);
+        LocalDateTime idleBefore = now.minus(idleAfter);
+        int rooms = 0;
+        int players = 0;
+        int skipped = 0;
+        try {
+            Long after = 0L;
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                if (batch > 0 && !pause()) {
+                    break;
+                }
+                List<GameRoom> candidates = roomRepository.findReapable(after, finishedBefore, idleBefore,
+                        Limit.of(batchSize));
+                if (candidates.isEmpty()) {
+                    break;
+                }
+                after = candidates.get(candidates.size() - 1).getId();
+
+                // Rooms still being written back stay until a later run. A request can still
+                // reload a released idle room before it is deleted; at idle-after age that is accepted
+                List<GameRoom> released = new ArrayList<>();
+                for (GameRoom room : candidates) {
+                    if (roomStateRegistry.release(room.getId())) {
+                        released.add(room);
+                    }
+                }
+                skipped += candidates.size() - released.size();
+
+                if (!released.isEmpty()) {
+                    players += archive(released, now);
+                    rooms += released.size();
+                    // Other nodes drop the room from memory; open status streams are closed
+                    for (GameRoom room : released) {
+                        roomEventBus.publish(RoomEvent.roomDeleted(room.getId()));
+                    }
+                }
+                if (candidates.size() < batchSize) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Room reaper run failed after {} rooms, continuing next run", rooms, e);
+        } finally {
+            sample.stop(runTimer);
+            playersCounter.increment(players);
+            skippedCounter.increment(skipped);
+        }
+        if (rooms > 0) {
+            log.info("Reaper archived {} rooms ({} players), skipped {}", rooms, players, skipped);
+        }
+        return new Result(rooms, players, skipped);
+    }
+
+    // One transaction per batch: summaries in, live rows out. Returns the number of player rows removed
+    private int archive(List<GameRoom> rooms, LocalDateTime now) {
+        List<Long> roomIds = rooms.stream().map(GameRoom::getId).toList();
+        List<String> imageUrls = new ArrayList<>();
+        Integer removed = transactionTemplate.execute(tx -> {
+            Map<Long, PlayerRepository.RoomTotals> totals = new HashMap<>();
+            for (PlayerRepository.RoomTotals total : playerRepository.totalsByRoomIds(roomIds)) {
+                totals.put(total.getRoomId(), total);
+            }
+            Map<Long, String> winners = new HashMap<>();
+            for (GamePlayer player : playerRepository.findTopScorersByRoomIds(roomIds)) {
+                winners.putIfAbsent(player.getRoomId(), player.getName());
+            }
+
+            List<RoomArchive> archives = new ArrayList<>();
+            for (GameRoom room : rooms) {
+                String reason = "FINISHED".equals(room.getStatus()) ? "finished" : "idle";
+                RoomArchive archive = new RoomArchive(room, reason, now);
+                PlayerRepository.RoomTotals total = totals.get(room.getId());
+                if (total != null) {
+                    archive.setPlayerCount((int) total.getPlayers());
+                    archive.setFinishedCount((int) total.getFinished());
+                    archive.setTopScore(total.getTopScore());
+                    archive.setAverageScore(total.getAverageScore());
+                    archive.setWinnerName(winners.get(room.getId()));
+                }
+                archives.add(archive);
+            }
+            roomArchiveRepository.saveAll(archives);
+
+            // Deleted as entities so their options go with them
+            List<GameLevel> levels = levelRepository.findByRoomIdIn(roomIds);
+            levels.forEach(level -> imageUrls.add(level.getImageUrl()));
+            levelRepository.deleteAll(levels);
+
+            int deleted = playerRepository.deleteByRoomIds(roomIds);
+            roomRepository.deleteAllByIdInBatch(roomIds);
+            return deleted;
+        });
+
+        levelCatalogService.evict(roomIds.toArray(Long[]::new));
+        // Storage is not part of the transaction; a failure here leaves a reference too many, never one too few
+        for (String imageUrl : imageUrls) {
+            try {
+                storageService.deleteFile(imageUrl);
+            } catch (RuntimeException e) {
+                log.warn("Could not release image {} of a reaped room", imageUrl, e);
+            }
+        }
+
+        for (GameRoom room : rooms) {
+            meterRegistry.counter("room.reaper.rooms", "reason",
+                    "FINISHED".equals(room.getStatus()) ? "finished" : "idle").increment();
+        }
+        return removed != null ? removed : 0;
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(batchPause);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,541 @@
+package com.game.dragdrop.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.game.dragdrop.model.GamePlayer;
+import com.game.dragdrop.model.GameRoom;
+import com.game.dragdrop.repository.PlayerRepository;
+import com.game.dragdrop.repository.RoomRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Authoritative in-memory state of live rooms and their players. Room flow
+ * requests read and mutate this state under a per-room striped lock; status,
+ * score and finished changes are written back to the database in batches by
+ * a scheduled flush. On startup the live rooms are reloaded from the last
+ * flushed state. Rooms missing from memory are loaded from the database
+ * outside the lock; finished ones are served from that load without being
+ * cached again.
+ */
+@Service
+public class RoomStateRegistry {
+    private static final Logger log = LoggerFactory.getLogger(RoomStateRegistry.class);
+
+    private static final int STRIPES = 64;
+    private static final List<String> LIVE_STATUSES = List.of("WAITING", "PLAYING");
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private PlayerRepository playerRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Max rooms written per flush transaction
+    @Value("${room.state.flush-batch-size:200}")
+    private int flushBatchSize;
+
+    private final Map<Long, RoomState> rooms = new ConcurrentHashMap<>();
+    private final Set<Long> dirtyRooms = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    // Per stripe, bumped when a room leaves memory, so a load that raced with it is not cached
+    private final AtomicLongArray removals = new AtomicLongArray(STRIPES);
+    private TransactionTemplate transactionTemplate;
+
+    public record JoinResult(String status, GamePlayer player) {
+    }
+
+    public record FinishResult(GamePlayer player, boolean roomFinished) {
+    }
+
+    public RoomStateRegistry() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    // Crash recovery: rebuild every room that was still live at the last flush
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        Map<Long, RoomState> loaded = new HashMap<>();
+        for (GameRoom room : roomRepository.findByStatusIn(LIVE_STATUSES)) {
+            loaded.put(room.getId(), new RoomState(room));
+        }
+        if (!loaded.isEmpty()) {
+            for (GamePlayer player : playerRepository.findByRoomIdIn(loaded.keySet())) {
+                loaded.get(player.getRoomId()).add(player);
+            }
+        }
+        rooms.putAll(loaded);
+        log.info("Reloaded {} live rooms", loaded.size());
+
+        for (String status : LIVE_STATUSES) {
+            Gauge.builder("game.rooms.active", this, registry -> registry.countRooms(status))
+                    .description("Live rooms by status")
+                    .tag("status", status)
+                    .register(meterRegistry);
+        }
+        Gauge.builder("game.players.active", this, RoomStateRegistry::countActivePlayers)
+                .description("Players in live rooms who have not finished yet")
+                .register(meterRegistry);
+    }
+
+    // Rooms are created synchronously, then owned by the registry
+    public void register(GameRoom room) {
+        locked(room.getId(), () -> rooms.put(room.getId(), new RoomState(copy(room))));
+    }
+
+    public void remove(Long roomId) {
+        locked(roomId, () -> {
+            dirtyRooms.remove(roomId);
+            removals.incrementAndGet(stripe(roomId));
+            return rooms.remove(roomId);
+        });
+    }
+
+    // Lets the reaper take a room out of memory; false while it still has unflushed changes
+    public boolean release(Long roomId) {
+        return locked(roomId, () -> {
+            RoomState state = rooms.get(roomId);
+            if (state != null && (state.roomDirty || !state.dirtyPlayers.isEmpty() || dirtyRooms.contains(roomId))) {
+                return false;
+            }
+            removals.incrementAndGet(stripe(roomId));
+            rooms.remove(roomId);
+            return true;
+        });
+    }
+
+    public String getStatus(Long roomId) {
+        return withRoom(roomId, false, state -> statusOf(state.room));
+    }
+
+    public void setStatus(Long roomId, String status) {
+        withRoom(roomId, true, state -> {
+            state.room.setStatus(status);
+            state.roomDirty = true;
+            return dirtyRooms.add(roomId);
+        });
+    }
+
+    // Overlays the in-memory status on rooms read from the database
+    public List<GameRoom> withLiveStatus(List<GameRoom> loadedRooms) {
+        for (GameRoom room : loadedRooms) {
+            if (rooms.containsKey(room.getId())) {
+                locked(room.getId(), () -> {
+                    RoomState state = rooms.get(room.getId());
+                    if (state != null) {
+                        room.setStatus(state.room.getStatus());
+                    }
+                    return null;
+                });
+            }
+        }
+        return loadedRooms;
+    }
+
+    // Answer to a join that needs no database work (already a member, or the room is closed);
+    // null when the player would be inserted or the room is not in memory
+    public JoinResult peekJoin(Long roomId, String playerName) {
+        if (!rooms.containsKey(roomId)) {
+            return null;
+        }
+        return locked(roomId, () -> {
+            RoomState state = rooms.get(roomId);
+            if (state == null) {
+                return null;
+            }
+            String status = statusOf(state.room);
+            if ("PLAYING".equals(status) || "FINISHED".equals(status)) {
+                return new JoinResult(status, null);
+            }
+            GamePlayer player = state.byName.get(playerName);
+            return player != null ? new JoinResult(status, copy(player)) : null;
+        });
+    }
+
+    public JoinResult join(Long roomId, String playerName) {
+        JoinResult known = withRoom(roomId, true, state -> {
+            String status = statusOf(state.room);
+            if ("PLAYING".equals(status) || "FINISHED".equals(status)) {
+                return new JoinResult(status, null);
+            }
+            GamePlayer player = state.byName.get(playerName);
+            return player != null ? new JoinResult(status, copy(player)) : null;
+        });
+        if (known != null) {
+            return known;
+        }
+
+        // New players are inserted right away, outside the lock: the generated id is the player's handle
+        GamePlayer inserted;
+        try {
+            inserted = playerRepository.save(new GamePlayer(playerName, roomId));
+        } catch (DataIntegrityViolationException e) {
+            // Same name joined first, here or on another node (unique room_id, name): rejoin as that player
+            inserted = playerRepository.findByRoomIdAndName(roomId, playerName).orElseThrow(() -> e);
+        }
+        GamePlayer player = inserted;
+        // Admitted while the room was waiting, so kept even if it started meanwhile
+        return withRoom(roomId, true, state -> {
+            GamePlayer member = state.byName.get(playerName);
+            if (member == null) {
+                member = player;
+                state.add(member);
+            }
+            return new JoinResult(statusOf(state.room), copy(member));
+        });
+    }
+
+    // Idempotent: a repeated finish changes nothing. A null score (no validated
+    // score is known) keeps the stored one.
+    public FinishResult finish(Long roomId, Long playerId, Integer score) {
+        return withRoom(roomId, true, state -> {
+            GamePlayer player = state.players.get(playerId);
+            if (player == null) {
+                throw new NoSuchElementException("Player not found");
+            }
+            if (player.isFinished()) {
+                return new FinishResult(copy(player), false);
+            }
+            player.setFinished(true);
+            if (score != null) {
+                player.setScore(score);
+            }
+            state.dirtyPlayers.add(playerId);
+
+            // Only the finish that takes the count to zero flips the room
+            boolean roomFinished = false;
+            if (--state.unfinished == 0 && !"FINISHED".equals(state.room.getStatus())) {
+                state.room.setStatus("FINISHED");
+                state.roomDirty = true;
+                roomFinished = true;
+            }
+            dirtyRooms.add(roomId);
+            return new FinishResult(copy(player), roomFinished);
+        });
+    }
+
+    // --- Changes made on other nodes, received over the RoomEventBus ---
+    // They update this node's view of rooms it holds; the originating node persists them.
+
+    public void applyRemoteStatus(Long roomId, String status) {
+        locked(roomId, () -> {
+            RoomState state = rooms.get(roomId);
+            if (state != null) {
+                state.room.setStatus(status);
+                if ("FINISHED".equals(status)) {
+                    // Nothing to write; the flush evicts it like a local finished room
+                    dirtyRooms.add(roomId);
+                }
+            }
+            return null;
+        });
+    }
+
+    // Idempotent join/finish; returns true when it finished the room in this node's view
+    public boolean applyRemotePlayer(GamePlayer player) {
+        return locked(player.getRoomId(), () -> {
+            RoomState state = rooms.get(player.getRoomId());
+            if (state == null) {
+                return false;
+            }
+            GamePlayer local = state.players.get(player.getId());
+            if (local == null) {
+                state.add(copy(player));
+                return false;
+            }
+            boolean firstFinish = player.isFinished() && !local.isFinished();
+            local.setFinished(local.isFinished() || player.isFinished());
+            local.setScore(player.getScore());
+            if (firstFinish && --state.unfinished == 0 && !"FINISHED".equals(state.room.getStatus())) {
+                // Two nodes can both see the last finish; writing FINISHED twice is harmless
+                state.room.setStatus("FINISHED");
+                state.roomDirty = true;
+                dirtyRooms.add(player.getRoomId());
+                return true;
+            }
+            return false;
+        });
+    }
+
+    public boolean hasPlayer(Long roomId, Long playerId) {
+        return withRoom(roomId, false, state -> state.players.containsKey(playerId));
+    }
+
+    public List<GamePlayer> getPlayers(Long roomId) {
+        return withRoom(roomId, false, state -> state.players.values().stream()
+                .map(RoomStateRegistry::copy)
+                .collect(Collectors.toList()));
+    }
+
+    // Write-behind: push pending changes to the database in batches
+    @Scheduled(fixedDelayString = "${room.state.flush-interval-ms:500}")
+    public synchronized void flush() {
+        while (!dirtyRooms.isEmpty()) {
+            List<Long> batchIds = new ArrayList<>();
+            List<GameRoom> roomBatch = new ArrayList<>();
+            List<GamePlayer> playerBatch = new ArrayList<>();
+
+            Iterator<Long> it = dirtyRooms.iterator();
+            while (it.hasNext() && batchIds.size() < flushBatchSize) {
+                Long roomId = it.next();
+                it.remove();
+                locked(roomId, () -> {
+                    RoomState state = rooms.get(roomId);
+                    if (state == null) {
+                        return null;
+                    }
+                    if (state.roomDirty) {
+                        roomBatch.add(copy(state.room));
+                        state.roomDirty = false;
+                    }
+                    for (Long playerId : state.dirtyPlayers) {
+                        playerBatch.add(copy(state.players.get(playerId)));
+                    }
+                    state.dirtyPlayers.clear();
+                    return batchIds.add(roomId);
+                });
+            }
+
+            try {
+                write(roomBatch, playerBatch);
+            } catch (RuntimeException e) {
+                log.warn("Room state flush failed, retrying next cycle", e);
+                requeue(roomBatch, playerBatch);
+                return;
+            }
+            evictFinished(batchIds);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void write(List<GameRoom> roomBatch, List<GamePlayer> playerBatch) {
+        if (roomBatch.isEmpty() && playerBatch.isEmpty()) {
+            return;
+        }
+        Map<Long, GameRoom> roomsById = roomBatch.stream()
+                .collect(Collectors.toMap(GameRoom::getId, Function.identity()));
+        Map<Long, GamePlayer> playersById = playerBatch.stream()
+                .collect(Collectors.toMap(GamePlayer::getId, Function.identity()));
+
+        // One select per table, then dirty checking emits batched updates on commit
+        transactionTemplate.executeWithoutResult(tx -> {
+            if (!roomsById.isEmpty()) {
+                for (GameRoom managed : roomRepository.findAllById(roomsById.keySet())) {
+                    managed.setStatus(roomsById.get(managed.getId()).getStatus());
+                }
+            }
+            if (!playersById.isEmpty()) {
+                for (GamePlayer managed : playerRepository.findAllById(playersById.keySet())) {
+                    GamePlayer latest = playersById.get(managed.getId());
+                    managed.setFinished(latest.isFinished());
+                    managed.setScore(latest.getScore());
+                }
+            }
+        });
+    }
+
+    private void requeue(List<GameRoom> roomBatch, List<GamePlayer> playerBatch) {
+        for (GameRoom room : roomBatch) {
+            locked(room.getId(), () -> {
+                RoomState state = rooms.get(room.getId());
+                if (state != null) {
+                    state.roomDirty = true;
+                    dirtyRooms.add(room.getId());
+                }
+                return null;
+            });
+        }
+        for (GamePlayer player : playerBatch) {
+            locked(player.getRoomId(), () -> {
+                RoomState state = rooms.get(player.getRoomId());
+                if (state != null) {
+                    state.dirtyPlayers.add(player.getId());
+                    dirtyRooms.add(player.getRoomId());
+                }
+                return null;
+            });
+        }
+    }
+
+    // Finished rooms leave memory once everything about them is persisted
+    private void evictFinished(List<Long> roomIds) {
+        for (Long roomId : roomIds) {
+            locked(roomId, () -> {
+                RoomState state = rooms.get(roomId);
+                if (state != null && "FINISHED".equals(state.room.getStatus())
+                        && !state.roomDirty && state.dirtyPlayers.isEmpty()) {
+                    removals.incrementAndGet(stripe(roomId));
+                    rooms.remove(roomId);
+                }
+                return null;
+            });
+        }
+    }
+
+    private int countRooms(String status) {
+        int count = 0;
+        for (Long roomId : rooms.keySet()) {
+            count += locked(roomId, () -> {
+                RoomState state = rooms.get(roomId);
+                return state != null && status.equals(statusOf(state.room)) ? 1 : 0;
+            });
+        }
+        return count;
+    }
+
+    private int countActivePlayers() {
+        int count = 0;
+        for (Long roomId : rooms.keySet()) {
+            count += locked(roomId, () -> {
+                RoomState state = rooms.get(roomId);
+                return state != null && LIVE_STATUSES.contains(statusOf(state.room)) ? state.unfinished : 0;
+            });
+        }
+        return count;
+    }
+
+    // Runs the action on the room under its stripe lock. A room not in memory is
+    // loaded first, without the lock, then looked up again under it. The load is
+    // cached when the action changes the room (the flush needs it in memory) or
+    // the room is live; finished rooms are read through, so reads don't pin a
+    // room that evictFinished took out.
+    private <T> T withRoom(Long roomId, boolean changes, Function<RoomState, T> action) {
+        RoomState loaded = null;
+        long loadedAt = 0;
+        while (true) {
+            ReentrantLock lock = stripeOf(roomId);
+            lock.lock();
+            try {
+                RoomState state = rooms.get(roomId);
+                if (state == null && loaded != null && loadedAt == removals.get(stripe(roomId))) {
+                    state = loaded;
+                    if (changes || !"FINISHED".equals(statusOf(state.room))) {
+                        rooms.put(roomId, state);
+                    }
+                }
+                if (state != null) {
+                    return action.apply(state);
+                }
+            } finally {
+                lock.unlock();
+            }
+            // Not in memory, or a room left memory while this load ran: load (again)
+            loadedAt = removals.get(stripe(roomId));
+            loaded = load(roomId);
+        }
+    }
+
+    private RoomState load(Long roomId) {
+        GameRoom room = roomRepository.findById(roomId)
+                .orElseThrow(() -> new NoSuchElementException("Room not found"));
+        RoomState state = new RoomState(room);
+        for (GamePlayer player : playerRepository.findByRoomId(roomId)) {
+            state.add(player);
+        }
+        return state;
+    }
+
+    private static int stripe(Long roomId) {
+        return Math.floorMod(roomId.hashCode(), STRIPES);
+    }
+
+    private ReentrantLock stripeOf(Long roomId) {
+        return stripes[stripe(roomId)];
+    }
+
+    private <T> T locked(Long roomId, Supplier<T> action) {
+        ReentrantLock lock = stripeOf(roomId);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static String statusOf(GameRoom room) {
+        return room.getStatus() != null ? room.getStatus() : "WAITING";
+    }
+
+    private static GameRoom copy(GameRoom room) {
+        GameRoom copy = new GameRoom(room.getName());
+        copy.setId(room.getId());
+        copy.setCreatedAt(room.getCreatedAt());
+        copy.setActive(room.isActive());
+        copy.setStatus(room.getStatus());
+        copy.setLevelSetId(room.getLevelSetId());
+        return copy;
+    }
+
+    private static GamePlayer copy(GamePlayer player) {
+        GamePlayer copy = new GamePlayer(player.getName(), player.getRoomId());
+        copy.setId(player.getId());
+        copy.setFinished(player.isFinished());
+        copy.setScore(player.getScore());
+        copy.setJoinedAt(player.getJoinedAt());
+        return copy;
+    }
+
+    private static final class RoomState {
+        final GameRoom room;
+        final Map<Long, GamePlayer> players = new LinkedHashMap<>();
+        final Map<String, GamePlayer> byName = new HashMap<>();
+        final Set<Long> dirtyPlayers = new HashSet<>();
+        boolean roomDirty;
+        // Players that have not finished yet; guarded by the room's stripe lock like the rest
+        int unfinished;
+
+        RoomState(GameRoom room) {
+            this.room = room;
+        }
+
+        void add(GamePlayer player) {
+            players.put(player.getId(), player);
+            byName.put(player.getName(), player);
+            if (!player.isFinished()) {
+                unfinished++;
+            }
+        }
+    }
+}
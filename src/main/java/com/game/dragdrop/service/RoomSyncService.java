@@ -0,0 +1,74 @@
+package com.game.dragdrop.service;
+
+import java.util.NoSuchElementException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Applies RoomEvents on every node. Events from this node only fan out to
+ * local subscribers (status streams, leaderboards); events from other nodes
+ * first update this node's RoomStateRegistry view, so players polling any
+ * node see the same room without a database read.
+ */
+@Service
+public class RoomSyncService {
+    @Autowired
+    private RoomEventBus roomEventBus;
+
+    @Autowired
+    private RoomStateRegistry roomStateRegistry;
+
+    @Autowired
+    private RoomEventService roomEventService;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @PostConstruct
+    public void init() {
+        roomEventBus.subscribe(this::onEvent);
+    }
+
+    private void onEvent(RoomEvent event) {
+        boolean remote = !roomEventBus.nodeId().equals(event.origin());
+        try {
+            switch (event.type()) {
+                case ROOM_CREATED -> {
+                    if (remote) {
+                        roomStateRegistry.register(event.toRoom());
+                    }
+                }
+                case ROOM_STATUS -> {
+                    if (remote) {
+                        roomStateRegistry.applyRemoteStatus(event.roomId(), event.status());
+                    }
+                    roomEventService.publishStatus(event.roomId(), event.status());
+                    if ("FINISHED".equals(event.status())) {
+                        // No more rank changes; a later viewer gets a board seeded afresh
+                        leaderboardService.evict(event.roomId());
+                    }
+                }
+                case ROOM_DELETED -> {
+                    if (remote) {
+                        roomStateRegistry.remove(event.roomId());
+                    }
+                    roomEventService.closeRoom(event.roomId());
+                    leaderboardService.evict(event.roomId());
+                }
+                case PLAYER_JOINED, PLAYER_FINISHED -> {
+                    boolean roomFinished = remote && roomStateRegistry.applyRemotePlayer(event.toPlayer());
+                    leaderboardService.update(event.toPlayer());
+                    if (roomFinished) {
+                        roomEventService.publishStatus(event.roomId(), "FINISHED");
+                        leaderboardService.evict(event.roomId());
+                    }
+                }
+            }
+        } catch (NoSuchElementException e) {
+            // Room deleted meanwhile; nothing left to update
+        }
+    }
+}
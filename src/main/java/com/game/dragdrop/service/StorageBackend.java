@@ -0,0 +1,19 @@
+package com.game.dragdrop.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Where uploaded files live. Keys are paths relative to /uploads/, e.g.
+ * "ab/cd/abcd...ef.png". Implementations stream content and never hold a
+ * whole file on the heap. Selected with storage.backend (local or s3).
+ */
+public interface StorageBackend {
+    // Takes ownership of a local temp file and stores it under key
+    void store(String key, Path source, String contentType) throws IOException;
+
+    Optional<StoredObject> fetch(String key) throws IOException;
+
+    void delete(String key) throws IOException;
+}
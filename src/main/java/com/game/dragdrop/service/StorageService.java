@@ -1,65 +1,245 @@
 package com.game.dragdrop.service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.util.UUID;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.game.dragdrop.model.StoredFile;
+import com.game.dragdrop.repository.StoredFileRepository;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 
+/**
+ * Content-addressed upload storage. Files are named after the SHA-256 of
+ * their content (computed while streaming) and sharded into two directory
+ * levels, e.g. /uploads/ab/cd/abcd...ef.png. Identical uploads share one
+ * file; StoredFile.refCount tracks how many levels use it. The bytes
+ * themselves live in the configured StorageBackend. Reference changes go
+ * through the database row (atomic updates, or a row lock held while the
+ * last reference deletes the file), so they hold across nodes.
+ */
 @Service
 public class StorageService {
-    @Value("${upload.dir:src/main/resources/static/uploads}")
-    private String uploadDir;
+    private static final Pattern CONTENT_URL = Pattern
+            .compile("^/uploads/[0-9a-f]{2}/[0-9a-f]{2}/([0-9a-f]{64})(\\.[a-z0-9]{1,8})?$");
+    private static final Pattern EXTENSION = Pattern.compile("\\.[a-z0-9]{1,8}$");
+
+    // Per image; multipart limits are higher to let level import archives through
+    @Value("${storage.max-file-size:2MB}")
+    private DataSize maxFileSize;
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    @Autowired
+    private StoredFileRepository storedFileRepository;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private DistributionSummary uploadSize;
+    private TransactionTemplate transactionTemplate;
 
-    // Create upload directory if it doesn't exist
     @PostConstruct
     public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        uploadSize = DistributionSummary.builder("storage.upload.size")
+                .description("Size of uploaded files")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public String uploadFile(MultipartFile file) {
         try {
-            Files.createDirectories(Paths.get(uploadDir));
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to create upload directory", e);
+            return uploadFile(file.getInputStream(), file.getSize(), file.getOriginalFilename(), file.getContentType());
+        } catch (IOException e) {
+            throw new RuntimeException("Error in the process of uploading file: " + e.getMessage());
         }
     }
 
-    public String uploadFile(MultipartFile file) {
+    // Same as above for content that is not a multipart part, e.g. an entry of an import archive
+    public String uploadFile(InputStream content, long size, String originalFilename, String contentType) {
+        long started = System.nanoTime();
+        String result = "failed";
+        Path temp = null;
         try {
-            if (file.isEmpty()) {
+            if (size == 0) {
                 throw new RuntimeException("File is empty, cannot upload!");
             }
+            if (size > maxFileSize.toBytes()) {
+                throw new RuntimeException("File is larger than " + maxFileSize);
+            }
+            uploadSize.record(size);
 
-            // Create unique file name
-            String originalFileName = file.getOriginalFilename();
-            String uniqueFileName = UUID.randomUUID().toString() + "_" + originalFileName;
-
-            // Determine the full path
-            Path rootPath = Paths.get(uploadDir);
-            Path filePath = rootPath.resolve(uniqueFileName);
+            // Stream to a local temp file with a channel transfer, hashing on the way
+            temp = Files.createTempFile("upload-", ".part");
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (ReadableByteChannel in = Channels.newChannel(new DigestInputStream(content, digest));
+                    FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                long position = 0;
+                for (long n; (n = out.transferFrom(in, position, 1 << 20)) > 0;) {
+                    position += n;
+                }
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String relativePath = hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash
+                    + extensionOf(originalFilename);
 
-            // Copy file to directory
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+            // Same content already stored: just take another reference. Waits on the row
+            // while a delete of its last reference runs; the row is gone after that
+            String existingUrl = transactionTemplate.execute(tx -> storedFileRepository.findForUpdate(hash)
+                    .map(stored -> {
+                        stored.setRefCount(stored.getRefCount() + 1);
+                        return stored.getUrl();
+                    })
+                    .orElse(null));
+            if (existingUrl != null) {
+                result = "deduplicated";
+                return existingUrl;
+            }
 
-            // Return the path that the Web (Frontend) can read
-            // Because the file is in static/uploads/, the URL will be /uploads/...
-            return "/uploads/" + uniqueFileName;
+            storageBackend.store(relativePath, temp, contentType);
+            temp = null;
 
+            String url = "/uploads/" + relativePath;
+            try {
+                storedFileRepository.save(new StoredFile(hash, url, 1));
+            } catch (DataIntegrityViolationException e) {
+                // Another node stored the same content first
+                if (storedFileRepository.incrementRefCount(hash) == 0) {
+                    throw new RuntimeException("Same file was deleted meanwhile, upload it again");
+                }
+                result = "deduplicated";
+                return url;
+            }
+            // Resized variants are produced in the background
+            imageVariantService.submit(hash, url);
+            result = "stored";
+            return url;
         } catch (Exception e) {
             throw new RuntimeException("Error in the process of uploading file: " + e.getMessage());
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (Exception ignored) {
+                    // Leftover temp files are harmless
+                }
+            }
+            Timer.builder("storage.upload")
+                    .description("Upload latency: hashing, storing and recording the file")
+                    .tag("result", result)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
         }
     }
 
+    // One more reference to content-addressed content, counted in the caller's transaction if there is one.
+    // Touches only the database; false for files that have to be copied with retain()
+    public boolean addReference(String fileUrl) {
+        Matcher matcher = CONTENT_URL.matcher(fileUrl);
+        return matcher.matches() && storedFileRepository.incrementRefCount(matcher.group(1)) > 0;
+    }
+
+    // One more reference to stored content, e.g. for a copied level; returns the URL the new holder uses.
+    // Files stored before content addressing are not reference counted, so they are stored again by hash
+    public String retain(String fileUrl) {
+        if (addReference(fileUrl)) {
+            return fileUrl;
+        }
+        String key = fileUrl.replace("/uploads/", "");
+        try {
+            StoredObject object = storageBackend.fetch(key)
+                    .orElseThrow(() -> new RuntimeException("File not found: " + fileUrl));
+            try (object; InputStream in = Channels.newInputStream(object.channel())) {
+                return uploadFile(in, object.size(), key,
+                        MediaTypeFactory.getMediaType(key).map(MediaType::toString).orElse(null));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error in the process of copying file: " + e.getMessage());
+        }
+    }
+
+    // Drops one reference; the file goes away with the last one
     public void deleteFile(String fileUrl) {
         try {
-            String fileName = fileUrl.replace("/uploads/", "");
-            Path filePath = Paths.get(uploadDir).resolve(fileName);
-            Files.deleteIfExists(filePath);
+            Matcher matcher = CONTENT_URL.matcher(fileUrl);
+            if (!matcher.matches()) {
+                // Files stored before content addressing are not shared
+                deleteStored(fileUrl);
+                return;
+            }
+
+            String hash = matcher.group(1);
+            transactionTemplate.executeWithoutResult(tx -> {
+                Optional<StoredFile> stored = storedFileRepository.findForUpdate(hash);
+                if (stored.isPresent() && stored.get().getRefCount() > 1) {
+                    stored.get().setRefCount(stored.get().getRefCount() - 1);
+                    return;
+                }
+                // Last reference: the files are deleted while the row is still locked, so an
+                // upload of the same content waits and then stores it afresh
+                String variants = stored.map(StoredFile::getVariants).orElse(null);
+                stored.ifPresent(storedFileRepository::delete);
+                storedFileRepository.flush();
+                try {
+                    deleteStored(fileUrl);
+                    for (String variantUrl : ImageVariantService.variantUrls(fileUrl, variants).values()) {
+                        deleteStored(variantUrl);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
         } catch (Exception e) {
             throw new RuntimeException("Error in the process of deleting file: " + e.getMessage());
         }
     }
+
+    private void deleteStored(String fileUrl) throws IOException {
+        storageBackend.delete(fileUrl.replace("/uploads/", ""));
+    }
+
+    // Keep a short, safe extension so the file is served with the right content type
+    private static String extensionOf(String originalFileName) {
+        if (originalFileName == null) {
+            return "";
+        }
+        Matcher matcher = EXTENSION.matcher(originalFileName.toLowerCase(Locale.ROOT));
+        return matcher.find() ? matcher.group() : "";
+    }
 }
@@ -0,0 +1,18 @@
+package com.game.dragdrop.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+
+// An open handle on stored content; close it once the content has been read
+public interface StoredObject extends Closeable {
+    long size();
+
+    ReadableByteChannel channel() throws IOException;
+
+    // Local file holding the content, if any, so it can be sent with sendfile
+    default Path localPath() {
+        return null;
+    }
+}
@@ -0,0 +1,203 @@
+package com.game.dragdrop.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hierarchical timing wheel: many timeouts driven by one thread. Time moves
+ * in ticks; each level is a ring of 64 buckets, every bucket of a level
+ * spanning 64 buckets of the level below. A timeout is put in the coarsest
+ * level it fits in and moved down a level (cascaded) when its bucket comes
+ * up, until it expires from the finest ring. Scheduling and cancelling are
+ * O(1); a tick only touches the buckets that are due. Memory is the fixed
+ * rings plus one node per pending timeout, however many there are.
+ * Expired tasks run on the wheel thread and must be short.
+ */
+public final class TimingWheel implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(TimingWheel.class);
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    // 64^4 ticks: 19 days at 100 ms; later deadlines wait in the top level and are cascaded again
+    private static final int LEVELS = 4;
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final Node[][] buckets = new Node[LEVELS][SLOTS];
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Thread thread;
+    private long now;
+    private int pending;
+    private volatile boolean running = true;
+
+    // Handle on a scheduled task
+    public final class Timeout {
+        private final Node node;
+
+        private Timeout(Node node) {
+            this.node = node;
+        }
+
+        // false if it already ran or was cancelled
+        public boolean cancel() {
+            lock.lock();
+            try {
+                if (!node.linked) {
+                    return false;
+                }
+                unlink(node);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final class Node {
+        final long deadline;
+        final Runnable task;
+        Node prev;
+        Node next;
+        // Bucket holding it; linked is false once it expired or was cancelled
+        int level;
+        int index;
+        boolean linked;
+
+        Node(long deadline, Runnable task) {
+            this.deadline = deadline;
+            this.task = task;
+        }
+    }
+
+    public TimingWheel(String name, long tick, TimeUnit unit) {
+        this.tickNanos = unit.toNanos(tick);
+        this.startNanos = System.nanoTime();
+        this.thread = Thread.ofPlatform().name(name).daemon().unstarted(this::run);
+        thread.start();
+    }
+
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        long deadlineNanos = System.nanoTime() + unit.toNanos(delay) - startNanos;
+        // Rounded up: a task never runs early
+        long deadline = (deadlineNanos + tickNanos - 1) / tickNanos;
+        lock.lock();
+        try {
+            Node node = new Node(Math.max(deadline, now + 1), task);
+            insert(node);
+            pending++;
+            return new Timeout(node);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int pending() {
+        lock.lock();
+        try {
+            return pending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    private void run() {
+        while (running) {
+            long target = (System.nanoTime() - startNanos) / tickNanos;
+            List<Runnable> due = new ArrayList<>();
+            lock.lock();
+            try {
+                while (now < target) {
+                    advance(due);
+                }
+            } finally {
+                lock.unlock();
+            }
+            for (Runnable task : due) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.warn("Timer task failed", e);
+                }
+            }
+            long nextTick = startNanos + (now + 1) * tickNanos;
+            LockSupport.parkNanos(Math.max(0, nextTick - System.nanoTime()));
+        }
+    }
+
+    // One tick forward: cascade coarser buckets that came up, then expire the finest bucket
+    private void advance(List<Runnable> due) {
+        now++;
+        for (int level = 1; level < LEVELS && (now & ((1L << (BITS * level)) - 1)) == 0; level++) {
+            int index = (int) (now >>> (BITS * level)) & MASK;
+            Node node = buckets[level][index];
+            buckets[level][index] = null;
+            while (node != null) {
+                Node next = node.next;
+                node.prev = null;
+                node.next = null;
+                insert(node);
+                node = next;
+            }
+        }
+        int index = (int) now & MASK;
+        Node node = buckets[0][index];
+        buckets[0][index] = null;
+        while (node != null) {
+            Node next = node.next;
+            node.linked = false;
+            node.prev = null;
+            node.next = null;
+            pending--;
+            due.add(node.task);
+            node = next;
+        }
+    }
+
+    private void insert(Node node) {
+        long delta = node.deadline - now;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (BITS * (level + 1))) {
+            level++;
+        }
+        // Beyond the top level: park in its furthest bucket and be cascaded again from there
+        long at = delta >= 1L << (BITS * LEVELS) ? now + (1L << (BITS * LEVELS)) - 1 : node.deadline;
+        int index = (int) (at >>> (BITS * level)) & MASK;
+        Node head = buckets[level][index];
+        node.next = head;
+        if (head != null) {
+            head.prev = node;
+        }
+        buckets[level][index] = node;
+        node.level = level;
+        node.index = index;
+        node.linked = true;
+    }
+
+    private void unlink(Node node) {
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else {
+            buckets[node.level][node.index] = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+        node.linked = false;
+        pending--;
+    }
+}
@@ -0,0 +1,11 @@
+-- Content-addressed uploads (StorageService). Not part of the baseline: it
+-- runs on databases baselined at V1, before V2 indexes it. IF NOT EXISTS for
+-- databases where ddl-auto=update already created it.
+
+CREATE TABLE IF NOT EXISTS stored_file (
+    hash VARCHAR(64) NOT NULL,
+    url VARCHAR(255) NOT NULL,
+    ref_count INTEGER NOT NULL,
+    variants VARCHAR(255),
+    PRIMARY KEY (hash)
+) ENGINE=InnoDB;
@@ -0,0 +1,55 @@
+-- Schema as previously created by ddl-auto=update. Existing databases are
+-- baselined at this version (spring.flyway.baseline-on-migrate) and skip it.
+
+CREATE TABLE game_room (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    created_at DATETIME(6),
+    is_active BIT,
+    status VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE game_player (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    room_id BIGINT NOT NULL,
+    is_finished BIT NOT NULL,
+    score INTEGER NOT NULL,
+    joined_at DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE game_level (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    image_url VARCHAR(255) NOT NULL,
+    answer VARCHAR(255) NOT NULL,
+    hint VARCHAR(255),
+    level_order INTEGER,
+    time_limit INTEGER,
+    room_id BIGINT,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE level_options (
+    level_id BIGINT NOT NULL,
+    option_text VARCHAR(255),
+    CONSTRAINT fk_level_options_level FOREIGN KEY (level_id) REFERENCES game_level (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE player (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255),
+    score INTEGER,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE user (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    username VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    role VARCHAR(255),
+    is_approved BIT,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_user_username UNIQUE (username)
+) ENGINE=InnoDB;
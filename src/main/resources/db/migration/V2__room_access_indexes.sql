@@ -0,0 +1,14 @@
+-- Indexes for the room and level access paths.
+
+-- A name could be joined twice into a room before this constraint; keep the first join
+DELETE FROM game_player
+WHERE id NOT IN (SELECT keep_id FROM (SELECT MIN(id) AS keep_id FROM game_player GROUP BY room_id, name) AS first_join);
+
+-- findByRoomIdAndName; findByRoomId / findByRoomIdIn use its leading column
+ALTER TABLE game_player ADD CONSTRAINT uk_game_player_room_name UNIQUE (room_id, name);
+
+-- findByRoomId on levels, read in play order
+CREATE INDEX idx_game_level_room_order ON game_level (room_id, level_order);
+
+-- findByUrlIn, when a room's levels are loaded with their image variants
+CREATE INDEX idx_stored_file_url ON stored_file (url);
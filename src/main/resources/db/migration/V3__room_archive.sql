@@ -0,0 +1,19 @@
+-- One summary row per room retired by the reaper (RoomReaperService); the
+-- room and its players are deleted from the live tables in the same batch.
+
+CREATE TABLE room_archive (
+    room_id BIGINT NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    created_at DATETIME(6),
+    archived_at DATETIME(6) NOT NULL,
+    final_status VARCHAR(255),
+    reason VARCHAR(16) NOT NULL,
+    player_count INTEGER NOT NULL,
+    finished_count INTEGER NOT NULL,
+    top_score INTEGER NOT NULL,
+    average_score DOUBLE NOT NULL,
+    winner_name VARCHAR(255),
+    PRIMARY KEY (room_id)
+) ENGINE=InnoDB;
+
+CREATE INDEX idx_room_archive_archived_at ON room_archive (archived_at);
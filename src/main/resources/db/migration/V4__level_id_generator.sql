@@ -0,0 +1,13 @@
+-- game_level ids now come from a pooled table generator (blocks of 50)
+-- instead of AUTO_INCREMENT: Hibernate knows the ids before inserting, so
+-- level and level_options inserts can go out as JDBC batches.
+
+CREATE TABLE id_generator (
+    sequence_name VARCHAR(255) NOT NULL,
+    next_val BIGINT,
+    PRIMARY KEY (sequence_name)
+) ENGINE=InnoDB;
+
+-- Start a full block past the highest existing id
+INSERT INTO id_generator (sequence_name, next_val)
+SELECT 'game_level', COALESCE(MAX(id), 0) + 51 FROM game_level;
@@ -0,0 +1,16 @@
+-- Reusable level sets: a room either has its own levels (game_level.room_id)
+-- or references a set (game_room.level_set_id) whose levels it shares with
+-- other rooms.
+
+CREATE TABLE level_set (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    created_at DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+ALTER TABLE game_room ADD COLUMN level_set_id BIGINT;
+ALTER TABLE game_level ADD COLUMN level_set_id BIGINT;
+
+CREATE INDEX idx_game_room_level_set ON game_room (level_set_id);
+CREATE INDEX idx_game_level_set_order ON game_level (level_set_id, level_order);
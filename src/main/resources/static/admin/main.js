@@ -183,10 +183,23 @@ document.addEventListener('DOMContentLoaded', async () => {
         } catch(e) { console.error(e); }
     };
 
+    // List endpoints are paged: follow X-Next-Cursor until the last page
+    async function fetchAllPages(url) {
+        let items = [];
+        let cursor = null;
+        do {
+            const res = await fetch(cursor ? `${url}${url.includes('?') ? '&' : '?'}cursor=${cursor}` : url);
+            const page = await res.json();
+            if (!Array.isArray(page)) return page;
+            items = items.concat(page);
+            cursor = res.headers.get('X-Next-Cursor');
+        } while (cursor);
+        return items;
+    }
+
     async function loadRooms() {
         try {
-            const res = await fetch('/api/rooms/all');
-            const rooms = await res.json();
+            const rooms = await fetchAllPages('/api/rooms/all');
             const tbody = document.getElementById('room-table-body');
             tbody.innerHTML = '';
             rooms.forEach((r, index) => {
@@ -219,8 +232,7 @@ document.addEventListener('DOMContentLoaded', async () => {
     // ================= USER APPROVAL LOGIC (ROOT) =================
     async function loadPendingUsers() {
         try {
-            const res = await fetch('/api/auth/users'); // Now fetches all users
-            const users = await res.json();
+            const users = await fetchAllPages('/api/auth/users'); // Now fetches all users
             const tbody = document.getElementById('user-table-body');
             tbody.innerHTML = '';
             
@@ -287,64 +299,106 @@ document.addEventListener('DOMContentLoaded', async () => {
 
     // ================= CLIENT MANAGEMENT LOGIC =================
     let viewingRoomId = null;
+    let clientsStream = null;
+    let clientsPollTimer = null;
+    let standings = []; // Ranked list kept in sync by the leaderboard stream
 
     window.openClientsModal = (roomId) => {
         viewingRoomId = roomId;
         document.getElementById('clients-modal').style.display = 'flex';
         document.querySelector('#clients-modal').classList.remove('hidden');
-        refreshClients();
+        watchClients();
     };
 
     window.closeClientsModal = () => {
         viewingRoomId = null;
+        stopWatchingClients();
         document.getElementById('clients-modal').style.display = 'none';
         document.querySelector('#clients-modal').classList.add('hidden');
     };
 
+    // Server sends a snapshot, then one "rank" event per player that joins or moves
+    function watchClients() {
+        stopWatchingClients();
+        if (!window.EventSource) {
+            startPollingClients();
+            return;
+        }
+        const source = new EventSource(`/api/rooms/${viewingRoomId}/leaderboard/stream`);
+        source.addEventListener('snapshot', (e) => {
+            standings = JSON.parse(e.data);
+            renderClients();
+        });
+        source.addEventListener('rank', (e) => {
+            const delta = JSON.parse(e.data);
+            standings = standings.filter(p => p.playerId !== delta.playerId);
+            standings.splice(delta.rank - 1, 0, delta);
+            renderClients();
+        });
+        source.onerror = () => {
+            source.close();
+            if (clientsStream === source) {
+                clientsStream = null;
+                startPollingClients();
+            }
+        };
+        clientsStream = source;
+    }
+
+    function stopWatchingClients() {
+        if (clientsStream) {
+            clientsStream.close();
+            clientsStream = null;
+        }
+        if (clientsPollTimer) {
+            clearInterval(clientsPollTimer);
+            clientsPollTimer = null;
+        }
+    }
+
+    // Fallback when the stream is unavailable
+    function startPollingClients() {
+        refreshClients();
+        clientsPollTimer = setInterval(refreshClients, 2000);
+    }
+
     window.refreshClients = async () => {
         if (!viewingRoomId) return;
         try {
-            const res = await fetch(`/api/rooms/${viewingRoomId}/players`);
-            const players = await res.json();
-            
-            // Sort by Score Desc
-            players.sort((a, b) => b.score - a.score);
-
-            const tbody = document.getElementById('clients-table-body');
-            tbody.innerHTML = '';
-            
-            players.forEach((p, idx) => {
-                const tr = document.createElement('tr');
-                tr.style.backgroundColor = "white"; // Matches screenshot
-                tr.style.color = "#1e293b"; // Dark text
-                tr.style.borderBottom = "1px solid #e2e8f0";
-
-                const status = p.finished ? '<span style="color:#10b981; font-weight:600;">Đã xong</span>' : '<span style="color:#f59e0b; font-weight:600;">Đang chơi</span>';
-                
-                tr.innerHTML = `
-                    <td style="padding:10px;">${idx + 1}</td>
-                    <td style="padding:10px; font-weight:500;">${p.name || 'Unknown'}</td>
-                    <td style="padding:10px; font-weight:700; color:#eab308;">${p.score}</td>
-                    <td style="padding:10px;">${status}</td>
-                `;
-                tbody.appendChild(tr);
-            });
+            const res = await fetch(`/api/rooms/${viewingRoomId}/leaderboard`);
+            standings = await res.json();
+            renderClients();
         } catch(e) { console.error(e); }
     };
-    
-    // Auto refresh clients if modal is open (optional)
-    setInterval(() => {
-        if (!document.getElementById('clients-modal').classList.contains('hidden')) {
-            refreshClients();
-        }
-    }, 500);
+
+    function renderClients() {
+        const tbody = document.getElementById('clients-table-body');
+        tbody.innerHTML = '';
+
+        standings.forEach((p, idx) => {
+            const tr = document.createElement('tr');
+            tr.style.backgroundColor = "white"; // Matches screenshot
+            tr.style.color = "#1e293b"; // Dark text
+            tr.style.borderBottom = "1px solid #e2e8f0";
+
+            const status = p.finished ? '<span style="color:#10b981; font-weight:600;">Đã xong</span>' : '<span style="color:#f59e0b; font-weight:600;">Đang chơi</span>';
+            
+            tr.innerHTML = `
+                <td style="padding:10px;">${idx + 1}</td>
+                <td style="padding:10px; font-weight:500;">${p.name || 'Unknown'}</td>
+                <td style="padding:10px; font-weight:700; color:#eab308;">${p.score}</td>
+                <td style="padding:10px;">${status}</td>
+            `;
+            tbody.appendChild(tr);
+        });
+    }
 
 
     // ================= SHARED UTILS =================
     window.deleteLevel = async (id) => {
         if (!confirm('Bạn có chắc chắn muốn xóa màn này?')) return;
         try {
-            const response = await fetch(`/api/management/level/${id}`, { method: 'DELETE' });
+            const response = await fetch(`/api/management/level/${id}?roomId=${currentRoomId}`, { method: 'DELETE' });
             if (response.ok) {
                 showToast('Đã xóa màn chơi');
                 loadLevels();
@@ -30,6 +30,32 @@ document.addEventListener('DOMContentLoaded', () => {
 
     // --- Initialization ---
     let timerInterval = null; // Declare here
+    let levelStartedAt = 0;
+
+    // --- Gameplay events: buffered and sent in batches to the server's event journal ---
+    let pendingEvents = [];
+
+    function track(type, value = 0) {
+        if (!state.playerId) return;
+        pendingEvents.push({ type, level: state.currentLevelIndex, at: Date.now(), value });
+        if (pendingEvents.length >= 200) flushEvents();
+    }
+
+    function flushEvents(beacon = false) {
+        if (pendingEvents.length === 0 || !state.roomId) return;
+        const body = JSON.stringify({ playerId: state.playerId, events: pendingEvents });
+        pendingEvents = [];
+        const url = `/api/rooms/${state.roomId}/events`;
+        if (beacon && navigator.sendBeacon) {
+            navigator.sendBeacon(url, new Blob([body], { type: 'application/json' }));
+        } else {
+            fetch(url, { method: 'POST', headers: { 'Content-Type': 'application/json' }, body, keepalive: true })
+                .catch(() => {}); // Analytics only; never disturb the game
+        }
+    }
+
+    setInterval(flushEvents, 5000);
+    window.addEventListener('pagehide', () => flushEvents(true));
     initGame();
 
     function initGame() {
@@ -50,29 +76,65 @@ document.addEventListener('DOMContentLoaded', () => {
             return;
         }
 
-        // Check status periodically
+        // React to a room status; returns true once we stop waiting
+        const handleStatus = (status) => {
+             if (status === 'PLAYING') {
+                 document.getElementById('pending-overlay').classList.add('hidden');
+                 document.getElementById('game-container').classList.remove('hidden');
+                 startLoadingLevels(roomId);
+                 return true;
+             } else if (status === 'FINISHED') {
+                 alert("Phòng đã kết thúc.");
+                 window.location.href='/client/rooms.html';
+                 return true;
+             }
+             return false;
+        };
+
+        // Fallback: check status periodically
         const checkStatus = async () => {
              try {
                  const statusRes = await fetch(`/api/rooms/${roomId}/status`);
                  const statusData = await statusRes.json();
                  
-                 if (statusData.status === 'PLAYING') {
-                     document.getElementById('pending-overlay').classList.add('hidden');
-                     document.getElementById('game-container').classList.remove('hidden');
-                     startLoadingLevels(roomId);
-                 } else if (statusData.status === 'FINISHED') {
-                     alert("Phòng đã kết thúc.");
-                     window.location.href='/client/rooms.html';
-                 } else {
+                 if (!handleStatus(statusData.status)) {
                      setTimeout(checkStatus, 2000); // Poll every 2s
                  }
              } catch(e) { console.error(e); }
         };
+
+        // Server pushes status changes; fall back to polling if the stream breaks
+        const watchStatus = () => {
+             if (!window.EventSource) {
+                 checkStatus();
+                 return;
+             }
+             let done = false;
+             const source = new EventSource(`/api/rooms/${roomId}/events`);
+             source.addEventListener('status', (e) => {
+                 const data = JSON.parse(e.data);
+                 if (handleStatus(data.status)) {
+                     done = true;
+                     source.close();
+                 }
+             });
+             source.onerror = () => {
+                 source.close();
+                 if (!done) checkStatus();
+             };
+        };
         
         // Join Room First
         try {
             const playerName = sessionStorage.getItem('playerName') || 'Guest';
-            const joinRes = await fetch(`/api/rooms/${roomId}/join?playerName=${encodeURIComponent(playerName)}`, { method: 'POST' });
+            const joinUrl = `/api/rooms/${roomId}/join?playerName=${encodeURIComponent(playerName)}`;
+            let joinRes = await fetch(joinUrl, { method: 'POST' });
+            // Server busy admitting players: wait as told and try again (join is idempotent)
+            for (let attempt = 0; joinRes.status === 503 && attempt < 10; attempt++) {
+                const retryAfter = Number(joinRes.headers.get('Retry-After')) || 1;
+                await new Promise(resolve => setTimeout(resolve, retryAfter * 1000));
+                joinRes = await fetch(joinUrl, { method: 'POST' });
+            }
             const joinData = await joinRes.json();
             
             if (joinData.error) {
@@ -85,7 +147,7 @@ document.addEventListener('DOMContentLoaded', () => {
             state.roomId = roomId;
 
             if (joinData.status === 'WAITING') {
-                checkStatus();
+                watchStatus();
             } else if (joinData.status === 'PLAYING') {
                  // Should be blocked by Join API but double check
                  alert("Phòng đang chơi!");
@@ -96,12 +158,19 @@ document.addEventListener('DOMContentLoaded', () => {
 
     async function startLoadingLevels(roomId) {
         try {
-            const response = await fetch(`/api/game/levels?roomId=${roomId}`);
+            // Versioned bundle: the browser revalidates with its ETag and gets 304 on reconnect
+            const response = await fetch(`/api/game/rooms/${roomId}/bundle`);
             if (!response.ok) throw new Error('Failed to fetch levels');
             
             const data = await response.json();
-            // Sort levels
-            state.levels = data.sort((a, b) => (a.levelOrder || 0) - (b.levelOrder || 0));
+            // Levels arrive sorted by levelOrder
+            state.levels = data.levels;
+
+            // Warm the image cache so later levels show up instantly
+            state.levels.forEach(level => {
+                const img = new Image();
+                img.src = pickImageUrl(level);
+            });
             
             if (state.levels.length > 0) {
                 loadLevel(0);
@@ -115,11 +184,18 @@ document.addEventListener('DOMContentLoaded', () => {
         }
     }
 
+    // Smallest resized variant that still covers the screen, original otherwise
+    function pickImageUrl(level) {
+        const needed = Math.min(window.innerWidth, 1200) * (window.devicePixelRatio || 1);
+        const widths = Object.keys(level.variants || {}).map(Number).sort((a, b) => a - b);
+        const width = widths.find(w => w >= needed);
+        return width ? level.variants[width] : level.imageUrl;
+    }
+
     // --- Game Logic ---
     function loadLevel(index) {
         state.currentLevelIndex = index;
         state.filledSlots = [];
-        state.cleanAnswer = '';
         state.totalSlots = 0;
         state.wordStructure = [];
         const level = state.levels[index];
@@ -141,13 +217,13 @@ document.addEventListener('DOMContentLoaded', () => {
              showToast('Không tải được hình ảnh', 'error');
         };
         // Set src AFTER handlers
-        elements.gameImage.src = level.imageUrl;
+        elements.gameImage.src = pickImageUrl(level);
 
         elements.hintText.classList.add('hidden');
         elements.hintText.textContent = level.hint || "Không có gợi ý.";
         
         // --- 2. SETUP SLOTS ---
-        setupDropSlots(level.answer);
+        setupDropSlots(level.wordLengths || []);
 
         // --- 3. RENDER OPTIONS ---
         elements.optionsContainer.innerHTML = '';
@@ -167,6 +243,11 @@ document.addEventListener('DOMContentLoaded', () => {
             elements.optionsContainer.appendChild(el);
         });
 
+        levelStartedAt = Date.now();
+        // The server keeps the authoritative clock for this level
+        fetch(`/api/rooms/${state.roomId}/levels/${index}/start?playerId=${state.playerId}`, { method: 'POST' })
+            .catch(e => console.error(e));
+
         // --- 4. START TIMER ---
         // Ensure element exists
         if (!elements.timerDisplay) elements.timerDisplay = document.getElementById('timer-display');
@@ -208,6 +289,7 @@ document.addEventListener('DOMContentLoaded', () => {
     }
 
     function handleTimeOut() {
+        track('TIMEOUT', Date.now() - levelStartedAt);
         showToast('Hết giờ!', 'error');
         // Auto skip or fail logic? Let's just show correct answer or move next.
         // Simple: Mark as Wrong visually then allow manual "Next" or auto.
@@ -221,7 +303,8 @@ document.addEventListener('DOMContentLoaded', () => {
         }, 2000);
     }
 
-    function setupDropSlots(answer) {
+    // The server only sends the length of each word; it keeps the answer
+    function setupDropSlots(wordLengths) {
         // Clear previous content
         elements.dropZone.innerHTML = '';
         elements.dropZone.classList.remove('correct', 'wrong');
@@ -230,17 +313,10 @@ document.addEventListener('DOMContentLoaded', () => {
         const slotsArea = document.createElement('div');
         slotsArea.className = 'answer-slots-area';
         
-        // Normalize answer: split by spaces/special chars to get words
-        // Only keep alphanumeric characters within each word
-        const rawWords = answer.split(/\s+/);
-        const words = rawWords
-            .map(w => w.replace(/[^A-Za-z0-9]/g, '')) // Keep only letters/numbers
-            .filter(w => w.length > 0);
-        
-        console.log('Processed words:', words); // Debug log
-        
+        const words = wordLengths.filter(length => length > 0);
+
         const wordCount = words.length;
-        const maxWordLength = Math.max(...words.map(w => w.length));
+        const maxWordLength = Math.max(...words);
         
         // Size logic based on word count and max word length
         if (wordCount > 5 || maxWordLength > 6) {
@@ -251,19 +327,14 @@ document.addEventListener('DOMContentLoaded', () => {
             slotsArea.classList.add('size-large');
         }
         
-        // Build a clean answer string for validation
-        // Format: "WORD1 WORD2 WORD3" with single spaces
-        state.cleanAnswer = words.join(' ').toUpperCase();
-        console.log('Clean answer for validation:', state.cleanAnswer);
-        
         let globalSlotIndex = 0;
         
-        words.forEach((word, wordIndex) => {
+        words.forEach((wordLength, wordIndex) => {
             const wordRow = document.createElement('div');
             wordRow.className = 'word-row';
             
             // Create slot for each character in the word
-            for (let charIndex = 0; charIndex < word.length; charIndex++) {
+            for (let charIndex = 0; charIndex < wordLength; charIndex++) {
                 const slot = document.createElement('div');
                 slot.className = 'answer-slot';
                 slot.dataset.index = globalSlotIndex;
@@ -413,10 +484,7 @@ document.addEventListener('DOMContentLoaded', () => {
 
     function handleDropAnywhere(data) {
         // Find first empty slot
-        const currentLevel = state.levels[state.currentLevelIndex];
-        const slotCount = currentLevel.answer.length;
-        
-        for (let i = 0; i < slotCount; i++) {
+        for (let i = 0; i < state.totalSlots; i++) {
             if (!state.filledSlots[i]) {
                 fillSlot(i, data);
                 return;
@@ -428,6 +496,7 @@ document.addEventListener('DOMContentLoaded', () => {
     function fillSlot(index, data) {
         // Update State
         state.filledSlots[index] = { text: data.text, sourceId: data.elementId };
+        track('PLACE', index);
         
         // Update UI
         const slotEl = document.querySelector(`.answer-slot[data-index="${index}"]`);
@@ -457,6 +526,7 @@ document.addEventListener('DOMContentLoaded', () => {
 
         // Clear State
         delete state.filledSlots[index];
+        track('REMOVE', index);
 
         // Clear UI
         const slotEl = document.querySelector(`.answer-slot[data-index="${index}"]`);
@@ -470,7 +540,7 @@ document.addEventListener('DOMContentLoaded', () => {
     function checkAnswerIfFull() {
         // Use the new totalSlots count (excludes spaces between words)
         const totalCharSlots = state.wordStructure 
-            ? state.wordStructure.reduce((sum, word) => sum + word.length, 0)
+            ? state.wordStructure.reduce((sum, wordLength) => sum + wordLength, 0)
             : 0;
         
         // Count filled character slots (not spaces)
@@ -498,26 +568,38 @@ document.addEventListener('DOMContentLoaded', () => {
             return; // Not full yet
         }
 
-        // It is full - compare with clean answer
-        console.log(`Checking: '${constructedAnswer}' vs '${state.cleanAnswer}'`);
-        
-        const cleanConstructed = constructedAnswer.replace(/\s+/g, ' ').trim().toUpperCase();
-        const cleanAnswer = state.cleanAnswer || "";
+        // It is full - the server checks it, within the level's time
+        submitAnswer(constructedAnswer.replace(/\s+/g, ' ').trim().toUpperCase());
+    }
+
+    async function submitAnswer(answer) {
+        let result;
+        try {
+            const res = await fetch(`/api/rooms/${state.roomId}/levels/${state.currentLevelIndex}/answer?playerId=${state.playerId}&answer=${encodeURIComponent(answer)}`, { method: 'POST' });
+            result = await res.json();
+        } catch (e) {
+            console.error(e);
+            showToast('Lỗi kết nối, thử lại.', 'error');
+            return;
+        }
+        state.score = result.score;
+        elements.scoreDisplay.textContent = state.score;
 
-        if (cleanConstructed === cleanAnswer) {
-             handleVictory();
+        if (result.outcome === 'CORRECT') {
+            handleVictory();
+        } else if (result.outcome === 'EXPIRED') {
+            stopTimer();
+            handleTimeOut();
         } else {
-             handleWrong();
+            handleWrong();
         }
     }
 
     function handleVictory() {
         stopTimer();
+        track('SOLVED', Date.now() - levelStartedAt);
         // Visuals
         document.querySelectorAll('.answer-slot').forEach(el => el.classList.add('correct-reveal'));
-        
-        state.score += 10;
-        elements.scoreDisplay.textContent = state.score;
 
         setTimeout(() => {
             elements.victoryModal.classList.remove('hidden');
@@ -525,6 +607,7 @@ document.addEventListener('DOMContentLoaded', () => {
     }
 
     function handleWrong() {
+        track('WRONG');
         // Visuals
         document.querySelectorAll('.answer-slot').forEach(el => el.classList.add('wrong-reveal'));
         elements.dropZone.classList.add('wrong');
@@ -551,9 +634,10 @@ document.addEventListener('DOMContentLoaded', () => {
     async function showEndGame() {
         elements.finalScoreValue.textContent = state.score;
         elements.endGameModal.classList.remove('hidden');
+        flushEvents();
         
         try {
-            await fetch(`/api/rooms/${state.roomId}/finish?playerId=${state.playerId}&score=${state.score}`, {method:'POST'});
+            await fetch(`/api/rooms/${state.roomId}/finish?playerId=${state.playerId}`, {method:'POST'});
             
             // Fetch Leaderboard
             const res = await fetch(`/api/rooms/${state.roomId}/players`);
@@ -628,6 +712,7 @@ document.addEventListener('DOMContentLoaded', () => {
         elements.hintBtn.addEventListener('click', (e) => {
             e.stopPropagation();
             elements.hintText.classList.toggle('hidden');
+            if (!elements.hintText.classList.contains('hidden')) track('HINT');
         });
 
         document.addEventListener('click', (e) => {
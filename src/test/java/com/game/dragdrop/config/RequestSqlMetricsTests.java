@@ -0,0 +1,56 @@
+package com.game.dragdrop.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest(properties = "management.endpoints.web.exposure.include=prometheus")
+@AutoConfigureMockMvc
+class RequestSqlMetricsTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void sqlStatementsAreCountedPerEndpoint() throws Exception {
+        mockMvc.perform(post("/api/rooms/create").param("name", "metrics"))
+                .andExpect(status().isOk());
+
+        DistributionSummary statements = meterRegistry.find("db.request.statements")
+                .tag("uri", "/api/rooms/create")
+                .tag("method", "POST")
+                .summary();
+        assertThat(statements).isNotNull();
+        assertThat(statements.count()).isEqualTo(1);
+        assertThat(statements.totalAmount()).isGreaterThanOrEqualTo(1);
+        assertThat(meterRegistry.find("db.request.time").tag("uri", "/api/rooms/create").timer()).isNotNull();
+    }
+
+    @Test
+    void metricsAreExposedForScraping() throws Exception {
+        mockMvc.perform(post("/api/rooms/create").param("name", "scrape"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("http_server_requests_seconds_count")))
+                .andExpect(content().string(containsString("db_request_statements_count")))
+                .andExpect(content().string(containsString("game_rooms_active{status=\"WAITING\"}")))
+                .andExpect(content().string(containsString("game_players_active")));
+    }
+}
@@ -0,0 +1,154 @@
+package com.game.dragdrop.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.game.dragdrop.model.GameLevel;
+import com.game.dragdrop.repository.LevelRepository;
+import com.game.dragdrop.repository.StoredFileRepository;
+import com.jayway.jsonpath.JsonPath;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AdminControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private LevelRepository levelRepository;
+
+    @Autowired
+    private StoredFileRepository storedFileRepository;
+
+    @Test
+    void importStoresEveryLevelOfTheArchive() throws Exception {
+        long roomId = 910_001L;
+        Map<String, byte[]> images = images("a.png", "b.png", "c.jpg");
+        String manifest = """
+                [{"image": "a.png", "answer": "CAT", "hint": "meow"},
+                 {"image": "b.png", "answer": "DOG", "levelOrder": 5},
+                 {"image": "c.jpg", "answer": "BIRD", "timeLimit": 30},
+                 {"image": "a.png", "answer": "KITTEN"}]
+                """;
+
+        Map<String, Object> progress = awaitImport(submit(roomId, zip(manifest, images)));
+
+        assertThat(progress.get("status")).isEqualTo("DONE");
+        assertThat(progress.get("imagesStored")).isEqualTo(4);
+        List<GameLevel> levels = levelRepository.findByRoomId(roomId).stream()
+                .sorted(Comparator.comparing(GameLevel::getLevelOrder)).toList();
+        assertThat(levels).extracting(GameLevel::getAnswer).containsExactly("CAT", "BIRD", "KITTEN", "DOG");
+        assertThat(levels.get(0).getOptions()).containsExactly("C", "A", "T");
+        assertThat(levels.get(1).getTimeLimit()).isEqualTo(30);
+        // The image used twice is stored once, referenced by both levels
+        assertThat(levels.get(0).getImageUrl()).isEqualTo(levels.get(2).getImageUrl());
+        String hash = levels.get(0).getImageUrl().replaceAll(".*/([0-9a-f]{64}).*", "$1");
+        assertThat(storedFileRepository.findById(hash).orElseThrow().getRefCount()).isEqualTo(2);
+    }
+
+    @Test
+    void failedImportLeavesNothingBehind() throws Exception {
+        long roomId = 910_002L;
+        Map<String, byte[]> images = images("a.png", "b.png");
+        // Longer than the answer column: the insert fails after every image is stored
+        String manifest = """
+                [{"image": "a.png", "answer": "CAT"},
+                 {"image": "b.png", "answer": "%s"}]
+                """.formatted("X".repeat(300));
+
+        Map<String, Object> progress = awaitImport(submit(roomId, zip(manifest, images)));
+
+        assertThat(progress.get("status")).isEqualTo("FAILED");
+        assertThat(levelRepository.findByRoomId(roomId)).isEmpty();
+        assertThat(storedFileRepository.findAll()).noneMatch(file -> file.getUrl().endsWith(".png")
+                && images.values().stream().anyMatch(content -> file.getHash().equals(sha256(content))));
+    }
+
+    @Test
+    void invalidManifestIsRejectedUpFront() throws Exception {
+        byte[] archive = zip("[{\"image\": \"missing.png\", \"answer\": \"CAT\"}]", Map.of());
+
+        mockMvc.perform(multipart("/api/management/level/import")
+                .file(new MockMultipartFile("archive", "levels.zip", "application/zip", archive)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Level 1: image missing.png not found in archive"));
+    }
+
+    private String submit(long roomId, byte[] archive) throws Exception {
+        String body = mockMvc.perform(multipart("/api/management/level/import")
+                .file(new MockMultipartFile("archive", "levels.zip", "application/zip", archive))
+                .param("roomId", String.valueOf(roomId)))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.read(body, "$.id");
+    }
+
+    private Map<String, Object> awaitImport(String jobId) throws Exception {
+        for (int i = 0; i < 100; i++) {
+            String body = mockMvc.perform(get("/api/management/level/import/{jobId}", jobId))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            Map<String, Object> progress = JsonPath.read(body, "$");
+            if ("DONE".equals(progress.get("status")) || "FAILED".equals(progress.get("status"))) {
+                return progress;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Import did not finish");
+    }
+
+    // Random content, so every test stores its own files
+    private static Map<String, byte[]> images(String... names) {
+        Map<String, byte[]> images = new LinkedHashMap<>();
+        for (String name : names) {
+            byte[] content = new byte[256];
+            ThreadLocalRandom.current().nextBytes(content);
+            images.put(name, content);
+        }
+        return images;
+    }
+
+    private static byte[] zip(String manifest, Map<String, byte[]> images) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            zip.putNextEntry(new ZipEntry("manifest.json"));
+            zip.write(manifest.getBytes(StandardCharsets.UTF_8));
+            for (Map.Entry<String, byte[]> image : images.entrySet()) {
+                zip.putNextEntry(new ZipEntry(image.getKey()));
+                zip.write(image.getValue());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.game.dragdrop.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.jayway.jsonpath.JsonPath;
+
+import jakarta.servlet.http.Cookie;
+
+@SpringBootTest(properties = "auth.mode=token")
+@AutoConfigureMockMvc
+class AuthControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void tokenLoginKeepsNoSessionAndPassesRoleChecks() throws Exception {
+        MvcResult login = mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"root\",\"password\":\"khanh1507\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.role").value("ROOT"))
+                .andReturn();
+
+        assertThat(login.getRequest().getSession(false)).isNull();
+        Cookie cookie = login.getResponse().getCookie("auth_token");
+        assertThat(cookie).isNotNull();
+        assertThat(cookie.isHttpOnly()).isTrue();
+        String token = JsonPath.read(login.getResponse().getContentAsString(), "$.token");
+
+        // Any node holding the key accepts it, from the cookie or as a bearer token
+        mockMvc.perform(get("/api/auth/me").cookie(new Cookie("auth_token", cookie.getValue())))
+                .andExpect(jsonPath("$.user").value("root"))
+                .andExpect(jsonPath("$.role").value("ROOT"));
+        mockMvc.perform(get("/api/auth/users").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/auth/approve/1").header(HttpHeaders.AUTHORIZATION, "Bearer " + token + "x"))
+                .andExpect(jsonPath("$.error").value("Unauthorized"));
+    }
+}
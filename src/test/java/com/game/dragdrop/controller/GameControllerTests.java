@@ -0,0 +1,247 @@
+package com.game.dragdrop.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.game.dragdrop.model.GameLevel;
+import com.game.dragdrop.repository.LevelRepository;
+import com.game.dragdrop.service.EncodedLevels;
+import com.game.dragdrop.service.KeysetQueryService;
+import com.game.dragdrop.service.LevelCatalogService;
+import com.jayway.jsonpath.JsonPath;
+
+import jakarta.persistence.EntityManagerFactory;
+
+// Compression as configured in the main application.properties
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {
+        "server.compression.enabled=true", "server.compression.mime-types=application/json",
+        "server.compression.min-response-size=1KB" })
+@AutoConfigureMockMvc
+class GameControllerTests {
+
+    private static final long ROOM_ID = 42L;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private LevelRepository levelRepository;
+
+    @Autowired
+    private LevelCatalogService levelCatalogService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        levelRepository.deleteAll();
+        for (int i = 1; i <= 5; i++) {
+            GameLevel level = new GameLevel();
+            level.setImageUrl("/uploads/level" + i + ".png");
+            level.setAnswer("ANSWER" + i);
+            level.setLevelOrder(i);
+            level.setRoomId(ROOM_ID);
+            level.setOptions(List.of("A", "N", "S", "W", "E", "R", String.valueOf(i)));
+            levelRepository.save(level);
+        }
+        levelCatalogService.evict(ROOM_ID);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void roomLevelsLoadWithOptionsInOneQuery() throws Exception {
+        // The room's level set, its levels with their options, plus the image variant lists
+        mockMvc.perform(get("/api/game/levels").param("roomId", String.valueOf(ROOM_ID)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(5))
+                .andExpect(jsonPath("$[0].options.length()").value(7));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+
+        // Served from the level cache afterwards
+        mockMvc.perform(get("/api/game/levels").param("roomId", String.valueOf(ROOM_ID)))
+                .andExpect(status().isOk());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void allLevelsPageLoadsOptionsInOneBatch() throws Exception {
+        // The page of levels, then the options of the whole page
+        mockMvc.perform(get("/api/game/levels"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(5))
+                .andExpect(jsonPath("$[0].options.length()").value(7))
+                .andExpect(header().doesNotExist(KeysetQueryService.NEXT_CURSOR_HEADER));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void allLevelsArePagedByCursor() throws Exception {
+        List<Integer> orders = new ArrayList<>();
+        String cursor = null;
+        do {
+            MockHttpServletRequestBuilder request = get("/api/game/levels").param("limit", "2");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            MockHttpServletResponse response = mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+            orders.addAll(JsonPath.read(response.getContentAsString(), "$[*].levelOrder"));
+            cursor = response.getHeader(KeysetQueryService.NEXT_CURSOR_HEADER);
+        } while (cursor != null);
+
+        assertThat(orders).containsExactly(1, 2, 3, 4, 5);
+    }
+
+    @Test
+    void shuffleLeavesStoredOptionsUntouched() throws Exception {
+        List<String> cached = levelCatalogService.getRoomLevels(ROOM_ID).levels().get(0).getOptions();
+        List<String> before = List.copyOf(cached);
+
+        for (int i = 0; i < 10; i++) {
+            mockMvc.perform(get("/api/game/levels").param("roomId", String.valueOf(ROOM_ID)))
+                    .andExpect(status().isOk());
+            mockMvc.perform(get("/api/game/level/1")).andExpect(status().isOk());
+        }
+
+        assertThat(cached).containsExactlyElementsOf(before);
+        assertThat(levelRepository.findByLevelOrder(1).orElseThrow().getOptions())
+                .containsExactlyElementsOf(before);
+    }
+
+    @Test
+    void roomLevelsAreServedFromTheCachedEncoding() throws Exception {
+        EncodedLevels encoded = levelCatalogService.getRoomLevels(ROOM_ID).json();
+
+        Set<List<String>> orders = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            String body = mockMvc.perform(get("/api/game/levels").param("roomId", String.valueOf(ROOM_ID)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].answer").doesNotExist())
+                    .andExpect(jsonPath("$[0].wordLengths[0]").value(7))
+                    .andExpect(jsonPath("$[0].imageUrl").value("/uploads/level1.png"))
+                    .andExpect(jsonPath("$[0].roomId").doesNotExist())
+                    .andReturn().getResponse().getContentAsString();
+            List<String> options = JsonPath.read(body, "$[0].options");
+            assertThat(options).containsExactlyInAnyOrder("A", "N", "S", "W", "E", "R", "1");
+            orders.add(options);
+        }
+        // Same encoding reused, options still shuffled per response
+        assertThat(levelCatalogService.getRoomLevels(ROOM_ID).json()).isSameAs(encoded);
+        assertThat(orders).hasSizeGreaterThan(1);
+    }
+
+    @Test
+    void bundleAnswersNotModifiedForCurrentVersion() throws Exception {
+        String etag = mockMvc.perform(get("/api/game/rooms/{roomId}/bundle", ROOM_ID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.roomId").value(ROOM_ID))
+                .andExpect(jsonPath("$.levels.length()").value(5))
+                .andExpect(jsonPath("$.levels[0].options.length()").value(7))
+                .andExpect(header().string("Link", containsString("rel=preload; as=image")))
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(etag).isNotBlank();
+
+        mockMvc.perform(get("/api/game/rooms/{roomId}/bundle", ROOM_ID).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        // Any admin change produces a new version
+        GameLevel level = levelRepository.findByLevelOrder(1).orElseThrow();
+        level.setHint("new hint");
+        levelRepository.save(level);
+        levelCatalogService.evict(ROOM_ID);
+
+        mockMvc.perform(get("/api/game/rooms/{roomId}/bundle", ROOM_ID).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)));
+    }
+
+    @Test
+    void bundleIsServedGzipped() throws Exception {
+        // Enough levels for the body to pass server.compression.min-response-size
+        for (int i = 6; i <= 20; i++) {
+            GameLevel level = new GameLevel();
+            level.setImageUrl("/uploads/level" + i + ".png");
+            level.setAnswer("ANSWER" + i);
+            level.setLevelOrder(i);
+            level.setRoomId(ROOM_ID);
+            level.setOptions(GameLevel.optionsFor("ANSWER" + i));
+            levelRepository.save(level);
+        }
+        levelCatalogService.evict(ROOM_ID);
+
+        HttpResponse<byte[]> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/game/rooms/" + ROOM_ID + "/bundle"))
+                        .header("Accept-Encoding", "gzip")
+                        .build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Encoding")).hasValue("gzip");
+        assertThat(response.headers().firstValue("ETag")).hasValueSatisfying(etag -> assertThat(etag).startsWith("W/"));
+    }
+
+    @Test
+    void bundledOptionsNeverReadAsTheAnswer() throws Exception {
+        // Two letter answers: an unguarded shuffle keeps half of them in answer order
+        long roomId = ROOM_ID + 1;
+        List<String> answers = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            String answer = String.valueOf((char) ('A' + i)) + (char) ('Z' - i);
+            answers.add(answer);
+            GameLevel level = new GameLevel();
+            level.setImageUrl("/uploads/pair" + i + ".png");
+            level.setAnswer(answer);
+            level.setLevelOrder(i + 1);
+            level.setRoomId(roomId);
+            level.setOptions(GameLevel.optionsFor(answer));
+            levelRepository.save(level);
+        }
+
+        for (int round = 0; round < 5; round++) {
+            levelCatalogService.evict(roomId);
+            String body = mockMvc.perform(get("/api/game/rooms/{roomId}/bundle", roomId))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            for (int i = 0; i < answers.size(); i++) {
+                List<String> options = JsonPath.read(body, "$.levels[" + i + "].options");
+                assertThat(String.join("", options)).isNotEqualTo(answers.get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.game.dragdrop.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.game.dragdrop.model.GameRoom;
+import com.game.dragdrop.repository.RoomRepository;
+import com.game.dragdrop.service.KeysetQueryService;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class RoomControllerTests {
+
+    // Far-future creation times keep these rooms apart from those of other tests
+    private static final LocalDateTime CREATED = LocalDateTime.of(2100, 1, 1, 0, 0);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    private final List<Long> roomIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 5; i++) {
+            GameRoom room = new GameRoom("paged-" + i);
+            room.setCreatedAt(CREATED.plusMinutes(i));
+            room.setStatus(i % 2 == 0 ? "WAITING" : "FINISHED");
+            roomIds.add(roomRepository.save(room).getId());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        roomRepository.deleteAllById(roomIds);
+    }
+
+    @Test
+    void pagesFollowTheCursorNewestFirst() throws Exception {
+        String cursor = mockMvc.perform(get("/api/rooms/all").param("createdAfter", "2099-12-31T00:00:00")
+                .param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].name").value("paged-4"))
+                .andReturn().getResponse().getHeader(KeysetQueryService.NEXT_CURSOR_HEADER);
+        assertThat(cursor).isEqualTo(String.valueOf(roomIds.get(2)));
+
+        mockMvc.perform(get("/api/rooms/all").param("createdAfter", "2099-12-31T00:00:00")
+                .param("limit", "3").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].name").value(org.hamcrest.Matchers.contains("paged-1", "paged-0")))
+                .andExpect(header().doesNotExist(KeysetQueryService.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void streamWritesEveryMatchingRow() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/rooms/all").param("stream", "true")
+                .param("createdAfter", "2099-12-31T00:00:00").param("status", "WAITING"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].name").value(org.hamcrest.Matchers.contains("paged-4", "paged-2", "paged-0")));
+    }
+}
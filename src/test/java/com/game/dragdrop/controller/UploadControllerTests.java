@@ -0,0 +1,48 @@
+package com.game.dragdrop.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class UploadControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Value("${upload.dir}")
+    private String uploadDir;
+
+    @Test
+    void onlyExistingFilesAreCachedAsImmutable() throws Exception {
+        Path file = Path.of(uploadDir, "cc", "dd", "ccdd.png");
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[] { 1, 2, 3 });
+
+        mockMvc.perform(get("/uploads/cc/dd/ccdd.png"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "max-age=31536000, public, immutable"));
+        mockMvc.perform(get("/uploads/cc/dd/ccdd.png").header("If-None-Match", "\"ccdd.png\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().exists("Cache-Control"));
+
+        mockMvc.perform(get("/uploads/cc/dd/missing.png"))
+                .andExpect(status().isNotFound())
+                .andExpect(header().doesNotExist("Cache-Control"));
+        // A matching ETag does not turn a missing file into a 304
+        mockMvc.perform(get("/uploads/cc/dd/missing.png").header("If-None-Match", "\"missing.png\""))
+                .andExpect(status().isNotFound())
+                .andExpect(header().doesNotExist("Cache-Control"));
+    }
+}
@@ -0,0 +1,31 @@
+package com.game.dragdrop.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import com.game.dragdrop.model.GamePlayer;
+
+// Runs against the schema built by the Flyway migrations
+@SpringBootTest
+class PlayerRepositoryTests {
+
+    private static final long ROOM_ID = 900_001L;
+
+    @Autowired
+    private PlayerRepository playerRepository;
+
+    @Test
+    void playerNamesAreUniquePerRoom() {
+        playerRepository.save(new GamePlayer("alice", ROOM_ID));
+        playerRepository.save(new GamePlayer("alice", ROOM_ID + 1));
+
+        assertThatThrownBy(() -> playerRepository.save(new GamePlayer("alice", ROOM_ID)))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(playerRepository.findByRoomIdAndName(ROOM_ID + 1, "alice")).isPresent();
+    }
+}
@@ -0,0 +1,69 @@
+package com.game.dragdrop.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+class AuthTokenServiceTests {
+
+    private static final String OLD_KEY = "k1:" + secret('a');
+    private static final String NEW_KEY = "k2:" + secret('b');
+
+    @Test
+    void issuedTokenVerifiesWithItsClaims() {
+        AuthTokenService tokens = new AuthTokenService(NEW_KEY, Duration.ofHours(1));
+
+        String token = tokens.issue("alice:smith", "ADMIN");
+
+        assertThat(token).startsWith("k2.");
+        assertThat(tokens.verify(token)).contains(new AuthTokenService.Principal("alice:smith", "ADMIN"));
+    }
+
+    @Test
+    void tamperedOrForeignTokensAreRejected() {
+        AuthTokenService tokens = new AuthTokenService(NEW_KEY, Duration.ofHours(1));
+        String token = tokens.issue("alice", "ADMIN");
+
+        // Claim ROOT with the original signature
+        String[] parts = token.split("\\.");
+        String forged = parts[0] + "."
+                + Base64.getUrlEncoder().withoutPadding().encodeToString(
+                        ("9999999999:ROOT:alice").getBytes())
+                + "." + parts[2];
+        assertThat(tokens.verify(forged)).isEmpty();
+
+        // Same kid, different secret
+        AuthTokenService otherNode = new AuthTokenService("k2:" + secret('c'), Duration.ofHours(1));
+        assertThat(otherNode.verify(token)).isEmpty();
+
+        assertThat(tokens.verify("garbage")).isEmpty();
+        assertThat(tokens.verify("k2..")).isEmpty();
+        assertThat(tokens.verify("k2.%%%.%%%")).isEmpty();
+    }
+
+    @Test
+    void expiredTokensAreRejected() {
+        AuthTokenService tokens = new AuthTokenService(NEW_KEY, Duration.ofSeconds(-1));
+
+        assertThat(tokens.verify(tokens.issue("alice", "ADMIN"))).isEmpty();
+    }
+
+    @Test
+    void rotatedKeysKeepAcceptingOldTokensUntilDropped() {
+        String oldToken = new AuthTokenService(OLD_KEY, Duration.ofHours(1)).issue("root", "ROOT");
+
+        AuthTokenService rotated = new AuthTokenService(NEW_KEY + "," + OLD_KEY, Duration.ofHours(1));
+        assertThat(rotated.verify(oldToken)).contains(new AuthTokenService.Principal("root", "ROOT"));
+        assertThat(rotated.issue("root", "ROOT")).startsWith("k2.");
+
+        AuthTokenService retired = new AuthTokenService(NEW_KEY, Duration.ofHours(1));
+        assertThat(retired.verify(oldToken)).isEmpty();
+    }
+
+    private static String secret(char fill) {
+        return Base64.getEncoder().encodeToString(String.valueOf(fill).repeat(32).getBytes());
+    }
+}
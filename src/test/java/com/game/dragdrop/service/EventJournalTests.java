@@ -0,0 +1,117 @@
+package com.game.dragdrop.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.util.FileSystemUtils;
+
+import com.game.dragdrop.controller.RoomController;
+import com.game.dragdrop.service.GameplayEvent.Type;
+
+import tools.jackson.databind.json.JsonMapper;
+
+// Ten records per segment, so a few dozen events already span several segments
+@SpringBootTest(properties = { "journal.dir=" + EventJournalTests.DIR, "journal.segment-size=470B",
+        "journal.max-segments=100" })
+@AutoConfigureMockMvc
+class EventJournalTests {
+
+    static final String DIR = "target/test-journal-segments";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EventJournal eventJournal;
+
+    @Autowired
+    private RoomController roomController;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @BeforeAll
+    static void cleanJournal() throws IOException {
+        FileSystemUtils.deleteRecursively(Path.of(DIR));
+    }
+
+    @Test
+    void batchesArePostedAndReadBackAcrossSegments() throws Exception {
+        Long roomId = roomController.createRoom("journal", null).getId();
+        Long playerId = ((Number) roomController.joinRoom(roomId, "ann").getBody().get("playerId")).longValue();
+        long start = eventJournal.end();
+
+        List<GameplayEvent> events = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            events.add(new GameplayEvent(i % 5 == 4 ? Type.SOLVED : Type.PLACE, i / 5, 1_700_000_000_000L + i, i));
+        }
+        mockMvc.perform(post("/api/rooms/{id}/events", roomId).contentType(MediaType.APPLICATION_JSON)
+                .content(jsonMapper.writeValueAsString(new RoomController.EventBatch(playerId, events))))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.accepted").value(25));
+
+        EventJournal.Batch first = eventJournal.read(start, 20);
+        EventJournal.Batch rest = eventJournal.read(first.next(), 20);
+        List<EventJournal.Entry> read = new ArrayList<>(first.entries());
+        read.addAll(rest.entries());
+        assertThat(read).extracting(EventJournal.Entry::event).containsExactlyElementsOf(events);
+        assertThat(read).allSatisfy(entry -> {
+            assertThat(entry.roomId()).isEqualTo(roomId);
+            assertThat(entry.playerId()).isEqualTo(playerId);
+        });
+        assertThat(rest.next()).isEqualTo(eventJournal.end());
+        try (Stream<Path> segments = Files.list(Path.of(DIR))) {
+            assertThat(segments.count()).isGreaterThanOrEqualTo(3);
+        }
+
+        // The admin reader pages the same way and hands out the position to poll from
+        mockMvc.perform(get("/api/management/events").param("cursor", String.valueOf(start)).param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(5))
+                .andExpect(jsonPath("$[4].event.type").value("SOLVED"))
+                .andExpect(header().string(KeysetQueryService.NEXT_CURSOR_HEADER,
+                        String.valueOf(read.get(5).position())));
+    }
+
+    @Test
+    void reopeningResumesAfterTheLastRecord() throws Exception {
+        long start = eventJournal.end();
+        eventJournal.append(1L, 2L, List.of(new GameplayEvent(Type.WRONG, 0, 1L, 0)));
+
+        eventJournal.close();
+        eventJournal.init();
+        eventJournal.append(1L, 2L, List.of(new GameplayEvent(Type.HINT, 0, 2L, 0)));
+
+        assertThat(eventJournal.read(start, 10).entries()).extracting(entry -> entry.event().type())
+                .containsExactly(Type.WRONG, Type.HINT);
+    }
+
+    @Test
+    void eventsOfUnknownPlayersAreRejected() throws Exception {
+        Long roomId = roomController.createRoom("journal", null).getId();
+        mockMvc.perform(post("/api/rooms/{id}/events", roomId).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"playerId\": 999999, \"events\": [{\"type\": \"PLACE\", \"level\": 0, \"at\": 1, \"value\": 0}]}"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/api/rooms/{id}/events", roomId).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"playerId\": 1, \"events\": [{\"level\": 0}]}"))
+                .andExpect(status().isBadRequest());
+    }
+}
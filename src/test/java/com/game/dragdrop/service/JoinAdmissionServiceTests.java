@@ -0,0 +1,107 @@
+package com.game.dragdrop.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.game.dragdrop.controller.RoomController;
+import com.game.dragdrop.repository.PlayerRepository;
+
+@SpringBootTest(properties = { "room.join.max-concurrent=1", "room.join.max-wait=200ms" })
+@AutoConfigureMockMvc
+class JoinAdmissionServiceTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JoinAdmissionService joinAdmissionService;
+
+    @Autowired
+    private RoomController roomController;
+
+    @Autowired
+    private PlayerRepository playerRepository;
+
+    @MockitoSpyBean
+    private RoomStateRegistry roomStateRegistry;
+
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private Long roomId;
+
+    @BeforeEach
+    void setUp() {
+        roomId = roomController.createRoom("storm", null).getId();
+        // The first join holds its permit until the test lets it go
+        doAnswer(invocation -> {
+            entered.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return invocation.callRealMethod();
+        }).when(roomStateRegistry).join(anyLong(), anyString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+    }
+
+    @Test
+    void concurrentJoinsOfOnePlayerShareOneInsert() throws Exception {
+        CompletableFuture<RoomStateRegistry.JoinResult> first = CompletableFuture
+                .supplyAsync(() -> joinAdmissionService.join(roomId, "alice"));
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<RoomStateRegistry.JoinResult> second = CompletableFuture
+                .supplyAsync(() -> joinAdmissionService.join(roomId, "alice"));
+        Thread.sleep(50);
+        release.countDown();
+
+        Long playerId = first.get(5, TimeUnit.SECONDS).player().getId();
+        assertThat(second.get(5, TimeUnit.SECONDS).player().getId()).isEqualTo(playerId);
+        verify(roomStateRegistry, times(1)).join(eq(roomId), eq("alice"));
+
+        // Joining again later is answered from memory
+        assertThat(joinAdmissionService.join(roomId, "alice").player().getId()).isEqualTo(playerId);
+        verify(roomStateRegistry, times(1)).join(eq(roomId), eq("alice"));
+        assertThat(playerRepository.findByRoomId(roomId)).hasSize(1);
+    }
+
+    @Test
+    void joinsBeyondThePermitsAreToldWhenToRetry() throws Exception {
+        CompletableFuture<RoomStateRegistry.JoinResult> first = CompletableFuture
+                .supplyAsync(() -> joinAdmissionService.join(roomId, "bob"));
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        mockMvc.perform(post("/api/rooms/{id}/join", roomId).param("playerName", "carol"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists("Retry-After"))
+                .andExpect(jsonPath("$.retryAfter").isNumber());
+
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS).player()).isNotNull();
+        mockMvc.perform(post("/api/rooms/{id}/join", roomId).param("playerName", "carol"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.playerId").isNumber());
+    }
+}
@@ -0,0 +1,169 @@
+package com.game.dragdrop.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpMethod;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.game.dragdrop.model.GameLevel;
+import com.game.dragdrop.model.GameRoom;
+import com.game.dragdrop.model.LevelSet;
+import com.game.dragdrop.model.StoredFile;
+import com.game.dragdrop.repository.LevelRepository;
+import com.game.dragdrop.repository.RoomRepository;
+import com.game.dragdrop.repository.StoredFileRepository;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class LevelSetServiceTests {
+
+    private static final String HASH = "5e".repeat(32);
+    private static final String IMAGE_URL = "/uploads/5e/5e/" + HASH + ".png";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private LevelSetService levelSetService;
+
+    @Autowired
+    private LevelCatalogService levelCatalogService;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private LevelRepository levelRepository;
+
+    @Autowired
+    private StoredFileRepository storedFileRepository;
+
+    @MockitoSpyBean
+    private StorageService storageService;
+
+    @Test
+    void roomsShareOneSetUntilOneOfThemEditsIt() throws Exception {
+        storedFileRepository.save(new StoredFile(HASH, IMAGE_URL, 2));
+        GameRoom first = roomRepository.save(new GameRoom("set-first"));
+        GameRoom second = roomRepository.save(new GameRoom("set-second"));
+        level(first, "CAT", 1);
+        level(first, "DOG", 2);
+
+        // The first room's levels become the set, then the second room plays it too
+        LevelSet set = levelSetService.create("animals", first.getId());
+        levelSetService.assign(second.getId(), set.getId());
+
+        LevelCatalogService.RoomLevels firstLevels = levelCatalogService.getRoomLevels(first.getId());
+        LevelCatalogService.RoomLevels secondLevels = levelCatalogService.getRoomLevels(second.getId());
+        assertThat(firstLevels.levels()).extracting(GameLevel::getAnswer).containsExactly("CAT", "DOG");
+        assertThat(secondLevels.levels()).isSameAs(firstLevels.levels());
+        assertThat(levelRepository.findByRoomId(first.getId())).isEmpty();
+
+        // Editing a level for the second room copies the set for that room only
+        Long catId = firstLevels.levels().get(0).getId();
+        mockMvc.perform(multipart(HttpMethod.PUT, "/api/management/level/{id}", catId)
+                .param("answer", "LION").param("hint", "").param("levelOrder", "1")
+                .param("roomId", String.valueOf(second.getId())))
+                .andExpect(status().isOk());
+
+        assertThat(levelCatalogService.getRoomLevels(first.getId()).levels())
+                .extracting(GameLevel::getAnswer).containsExactly("CAT", "DOG");
+        List<GameLevel> edited = levelCatalogService.getRoomLevels(second.getId()).levels();
+        assertThat(edited).extracting(GameLevel::getAnswer).containsExactly("LION", "DOG");
+        assertThat(edited.get(0).getId()).isNotEqualTo(catId);
+        assertThat(roomRepository.findLevelSetIdById(first.getId())).isEqualTo(set.getId());
+        assertThat(roomRepository.findLevelSetIdById(second.getId())).isNotEqualTo(set.getId());
+        // The copy references the same image instead of storing it again
+        assertThat(edited.get(1).getImageUrl()).isEqualTo(IMAGE_URL);
+        assertThat(storedFileRepository.findById(HASH).orElseThrow().getRefCount()).isEqualTo(4);
+
+        // A set used by one room only is edited in place
+        Long dogId = edited.get(1).getId();
+        mockMvc.perform(multipart(HttpMethod.PUT, "/api/management/level/{id}", dogId)
+                .param("answer", "WOLF").param("hint", "").param("levelOrder", "2")
+                .param("roomId", String.valueOf(second.getId())))
+                .andExpect(status().isOk());
+        assertThat(levelCatalogService.getRoomLevels(second.getId()).levels().get(1).getId()).isEqualTo(dogId);
+    }
+
+    @Test
+    void concurrentEditsForOneRoomForkOnce() throws Exception {
+        GameRoom first = roomRepository.save(new GameRoom("fork-first"));
+        GameRoom second = roomRepository.save(new GameRoom("fork-second"));
+        level(first, "OWL", 1);
+        LevelSet set = levelSetService.create("birds", first.getId());
+        levelSetService.assign(second.getId(), set.getId());
+
+        // Both edits have seen the shared set; each waits a moment for the other inside the fork
+        CountDownLatch bothForking = new CountDownLatch(2);
+        doAnswer(invocation -> {
+            bothForking.countDown();
+            bothForking.await(300, TimeUnit.MILLISECONDS);
+            return invocation.callRealMethod();
+        }).when(storageService).addReference(anyString());
+
+        CompletableFuture<List<GameLevel>> one = CompletableFuture.supplyAsync(
+                () -> levelSetService.addLevels(second.getId(), List.of(newLevel("HAWK"))));
+        CompletableFuture<List<GameLevel>> other = CompletableFuture.supplyAsync(
+                () -> levelSetService.addLevels(second.getId(), List.of(newLevel("WREN"))));
+
+        Long forked = one.get(10, TimeUnit.SECONDS).get(0).getLevelSetId();
+        assertThat(forked).isNotEqualTo(set.getId());
+        assertThat(other.get(10, TimeUnit.SECONDS).get(0).getLevelSetId()).isEqualTo(forked);
+        assertThat(roomRepository.findLevelSetIdById(second.getId())).isEqualTo(forked);
+        assertThat(levelRepository.findByLevelSetId(forked)).extracting(GameLevel::getAnswer)
+                .containsExactlyInAnyOrder("OWL", "HAWK", "WREN");
+        assertThat(levelSetService.findAll()).extracting(LevelSet::getName).containsOnlyOnce("birds (room "
+                + second.getId() + ")");
+    }
+
+    @Test
+    void failedInsertLeavesTheRoomOnItsSharedSet() {
+        GameRoom first = roomRepository.save(new GameRoom("rollback-first"));
+        GameRoom second = roomRepository.save(new GameRoom("rollback-second"));
+        level(first, "FOX", 1);
+        LevelSet set = levelSetService.create("forest", first.getId());
+        levelSetService.assign(second.getId(), set.getId());
+        int sets = levelSetService.findAll().size();
+
+        // Longer than the answer column: the insert fails after the fork
+        assertThatThrownBy(() -> levelSetService.addLevels(second.getId(), List.of(newLevel("X".repeat(300)))))
+                .isInstanceOf(RuntimeException.class);
+
+        assertThat(roomRepository.findLevelSetIdById(second.getId())).isEqualTo(set.getId());
+        assertThat(levelSetService.findAll()).hasSize(sets);
+    }
+
+    private static GameLevel newLevel(String answer) {
+        GameLevel level = new GameLevel();
+        level.setImageUrl(IMAGE_URL);
+        level.setAnswer(answer);
+        level.setOptions(GameLevel.optionsFor(answer));
+        return level;
+    }
+
+    private void level(GameRoom room, String answer, int order) {
+        GameLevel level = new GameLevel();
+        level.setImageUrl(IMAGE_URL);
+        level.setAnswer(answer);
+        level.setLevelOrder(order);
+        level.setRoomId(room.getId());
+        level.setOptions(GameLevel.optionsFor(answer));
+        levelRepository.save(level);
+    }
+}
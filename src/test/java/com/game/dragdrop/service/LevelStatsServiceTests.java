@@ -0,0 +1,82 @@
+package com.game.dragdrop.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.assertj.core.data.Percentage.withPercentage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.game.dragdrop.controller.RoomController;
+import com.game.dragdrop.model.GameLevel;
+import com.game.dragdrop.repository.LevelRepository;
+import com.game.dragdrop.service.GameplayEvent.Type;
+
+@SpringBootTest
+class LevelStatsServiceTests {
+
+    @Autowired
+    private LevelStatsService levelStatsService;
+
+    @Autowired
+    private RoomController roomController;
+
+    @Autowired
+    private LevelRepository levelRepository;
+
+    @Test
+    void solveTimesAndFailuresAreAggregatedPerLevel() {
+        Long roomId = roomController.createRoom("stats", null).getId();
+        List<Long> levelIds = new ArrayList<>();
+        for (int i = 1; i <= 2; i++) {
+            GameLevel level = new GameLevel();
+            level.setImageUrl("/uploads/stats" + i + ".png");
+            level.setAnswer("STATS" + i);
+            level.setLevelOrder(i);
+            level.setRoomId(roomId);
+            level.setOptions(GameLevel.optionsFor(level.getAnswer()));
+            levelIds.add(levelRepository.save(level).getId());
+        }
+
+        // First level: 100 solves of 0.1s to 10s, 10 timeouts, 30 wrong answers
+        List<GameplayEvent> events = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            events.add(new GameplayEvent(Type.SOLVED, 0, i, i * 100));
+        }
+        for (int i = 0; i < 10; i++) {
+            events.add(new GameplayEvent(Type.TIMEOUT, 0, i, 60_000));
+        }
+        for (int i = 0; i < 30; i++) {
+            events.add(new GameplayEvent(Type.WRONG, 0, i, 0));
+        }
+        events.add(new GameplayEvent(Type.PLACE, 0, 0, 1));
+        events.add(new GameplayEvent(Type.SOLVED, 7, 0, 100)); // not a level of the room
+        levelStatsService.record(roomId, events);
+
+        List<LevelStatsService.LevelStats> room = levelStatsService.room(roomId);
+        assertThat(room).extracting(LevelStatsService.LevelStats::levelId).containsExactlyElementsOf(levelIds);
+
+        LevelStatsService.LevelStats first = room.get(0);
+        assertThat(first.plays()).isEqualTo(110);
+        assertThat(first.solved()).isEqualTo(100);
+        assertThat(first.failureRate()).isCloseTo(10.0 / 110, within(1e-9));
+        assertThat(first.wrongPerPlay()).isCloseTo(30.0 / 110, within(1e-9));
+        // Within one 8% bucket of the exact values
+        assertThat(first.solveP50Ms()).isCloseTo(5_000L, withPercentage(8));
+        assertThat(first.solveP90Ms()).isCloseTo(9_000L, withPercentage(8));
+        assertThat(first.solveP99Ms()).isCloseTo(9_900L, withPercentage(8));
+
+        LevelStatsService.LevelStats second = room.get(1);
+        assertThat(second.plays()).isZero();
+        assertThat(second.solveP50Ms()).isNull();
+
+        // The same numbers appear in the cross-room view of the level
+        assertThat(levelStatsService.levels()).filteredOn(stats -> stats.levelId().equals(levelIds.get(0)))
+                .singleElement()
+                .satisfies(stats -> assertThat(stats.plays()).isEqualTo(110));
+    }
+}
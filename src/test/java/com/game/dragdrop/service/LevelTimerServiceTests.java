@@ -0,0 +1,102 @@
+package com.game.dragdrop.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+
+import com.game.dragdrop.controller.RoomController;
+import com.game.dragdrop.model.GameLevel;
+import com.game.dragdrop.model.GamePlayer;
+import com.game.dragdrop.repository.LevelRepository;
+import com.game.dragdrop.service.LevelTimerService.Outcome;
+
+@SpringBootTest(properties = { "level.timer.tick=10ms", "level.timer.grace=0s" })
+class LevelTimerServiceTests {
+
+    @Autowired
+    private LevelTimerService levelTimerService;
+
+    @Autowired
+    private RoomController roomController;
+
+    @Autowired
+    private LevelRepository levelRepository;
+
+    @Test
+    void onlyCorrectAnswersBeforeTheDeadlineScore() throws Exception {
+        Long roomId = roomController.createRoom("timers", null).getId();
+        addLevel(roomId, 1, "Ice cream!", 60);
+        addLevel(roomId, 2, "DOG", 1);
+        Map<String, Object> joined = roomController.joinRoom(roomId, "tim").getBody();
+        Long playerId = ((Number) joined.get("playerId")).longValue();
+
+        // Not started yet: nothing to answer
+        assertThat(levelTimerService.answer(roomId, playerId, 0, "ICE CREAM").outcome())
+                .isEqualTo(Outcome.NOT_STARTED);
+
+        assertThat(levelTimerService.start(roomId, playerId, 0).timeLimit()).isEqualTo(60);
+        assertThat(levelTimerService.answer(roomId, playerId, 0, "ICE CRAEM").outcome()).isEqualTo(Outcome.WRONG);
+        // Compared the way the client builds answers: letters and digits, words upper case
+        assertThat(levelTimerService.answer(roomId, playerId, 0, "ice  cream"))
+                .isEqualTo(new LevelTimerService.Answered(Outcome.CORRECT, LevelTimerService.POINTS_PER_LEVEL));
+        assertThat(levelTimerService.answer(roomId, playerId, 0, "ICE CREAM").score())
+                .isEqualTo(LevelTimerService.POINTS_PER_LEVEL);
+
+        // One second limit: the answer arrives too late
+        levelTimerService.start(roomId, playerId, 1);
+        Thread.sleep(1_200);
+        assertThat(levelTimerService.answer(roomId, playerId, 1, "DOG"))
+                .isEqualTo(new LevelTimerService.Answered(Outcome.EXPIRED, LevelTimerService.POINTS_PER_LEVEL));
+
+        // The server's score is recorded, whatever the client claimed
+        roomController.finishGame(roomId, playerId);
+        assertThat(roomController.getPlayers(roomId)).extracting(GamePlayer::getScore)
+                .containsExactly(LevelTimerService.POINTS_PER_LEVEL);
+
+        // A retried finish keeps the score although the clock is gone
+        roomController.finishGame(roomId, playerId);
+        assertThat(roomController.getPlayers(roomId)).extracting(GamePlayer::getScore)
+                .containsExactly(LevelTimerService.POINTS_PER_LEVEL);
+    }
+
+    @Test
+    void levelsCannotBeRestartedForAFreshClock() throws Exception {
+        Long roomId = roomController.createRoom("restarts", null).getId();
+        addLevel(roomId, 1, "CAT", 60);
+        addLevel(roomId, 2, "DOG", 1);
+        Long playerId = ((Number) roomController.joinRoom(roomId, "rex").getBody().get("playerId")).longValue();
+
+        // Starting the running level again keeps its deadline
+        levelTimerService.start(roomId, playerId, 1);
+        Thread.sleep(300);
+        assertThat(levelTimerService.start(roomId, playerId, 1).remainingMs()).isLessThanOrEqualTo(700);
+
+        // Once the time is up the level stays expired
+        Thread.sleep(1_000);
+        assertThat(roomController.startLevel(roomId, 1, playerId).getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(levelTimerService.answer(roomId, playerId, 1, "DOG").outcome()).isEqualTo(Outcome.EXPIRED);
+
+        // A solved level can't be timed again either
+        levelTimerService.start(roomId, playerId, 0);
+        assertThat(levelTimerService.answer(roomId, playerId, 0, "CAT").outcome()).isEqualTo(Outcome.CORRECT);
+        assertThatThrownBy(() -> levelTimerService.start(roomId, playerId, 0))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private void addLevel(Long roomId, int order, String answer, int timeLimit) {
+        GameLevel level = new GameLevel();
+        level.setImageUrl("/uploads/timer" + order + ".png");
+        level.setAnswer(answer);
+        level.setLevelOrder(order);
+        level.setTimeLimit(timeLimit);
+        level.setRoomId(roomId);
+        level.setOptions(GameLevel.optionsFor(answer));
+        levelRepository.save(level);
+    }
+}
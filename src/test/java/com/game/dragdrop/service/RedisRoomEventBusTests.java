@@ -0,0 +1,212 @@
+package com.game.dragdrop.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RedisRoomEventBusTests {
+
+    private static final String CHANNEL = "test:room-events";
+
+    private BrokerStandIn broker;
+    private RedisRoomEventBus nodeA;
+    private RedisRoomEventBus nodeB;
+    private final BlockingQueue<RoomEvent> receivedByA = new LinkedBlockingQueue<>();
+    private final BlockingQueue<RoomEvent> receivedByB = new LinkedBlockingQueue<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        broker = new BrokerStandIn();
+        nodeA = new RedisRoomEventBus("127.0.0.1", broker.port(), CHANNEL, 100);
+        nodeB = new RedisRoomEventBus("127.0.0.1", broker.port(), CHANNEL, 100);
+        nodeA.subscribe(receivedByA::add);
+        nodeB.subscribe(receivedByB::add);
+        nodeA.start();
+        nodeB.start();
+        broker.awaitSubscribers(2);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        nodeA.stop();
+        nodeB.stop();
+        broker.close();
+    }
+
+    @Test
+    void eventsReachOtherNodesOnceAndThePublisherSynchronously() throws Exception {
+        nodeA.publish(RoomEvent.status(7L, "PLAYING"));
+
+        // The publisher's listeners ran before publish returned
+        RoomEvent local = receivedByA.poll();
+        assertThat(local).isNotNull();
+        assertThat(local.origin()).isEqualTo(nodeA.nodeId());
+
+        RoomEvent remote = receivedByB.poll(5, TimeUnit.SECONDS);
+        assertThat(remote).isEqualTo(local);
+
+        // The broker echoes to node A as well; it must not be applied twice
+        nodeB.publish(RoomEvent.roomDeleted(8L));
+        assertThat(receivedByA.poll(5, TimeUnit.SECONDS).type()).isEqualTo(RoomEvent.Type.ROOM_DELETED);
+        assertThat(receivedByA).isEmpty();
+    }
+
+    @Test
+    void publisherReconnectsAfterBrokerDropsConnections() throws Exception {
+        nodeA.publish(RoomEvent.status(1L, "PLAYING"));
+        assertThat(receivedByB.poll(5, TimeUnit.SECONDS)).isNotNull();
+
+        broker.dropAll();
+        broker.awaitSubscribers(2);
+
+        nodeA.publish(RoomEvent.status(1L, "FINISHED"));
+        RoomEvent event = receivedByB.poll(5, TimeUnit.SECONDS);
+        assertThat(event).isNotNull();
+        assertThat(event.status()).isEqualTo("FINISHED");
+    }
+
+    @Test
+    void publishDoesNotWaitForAnUnresponsiveBroker() throws Exception {
+        // Accepts connections and never answers
+        try (ServerSocket silent = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            List<RoomEvent> local = new ArrayList<>();
+            RedisRoomEventBus stuck = new RedisRoomEventBus("127.0.0.1", silent.getLocalPort(), CHANNEL, 2);
+            stuck.subscribe(local::add);
+            stuck.start();
+            try {
+                long started = System.nanoTime();
+                for (int i = 0; i < 10; i++) {
+                    stuck.publish(RoomEvent.status((long) i, "PLAYING"));
+                }
+                assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isLessThan(1_000);
+                // Local listeners still run for every event; beyond the queue and the batch in flight, all are dropped
+                assertThat(local).hasSize(10);
+                assertThat(stuck.droppedEvents()).isGreaterThanOrEqualTo(6);
+            } finally {
+                stuck.stop();
+            }
+        }
+    }
+
+    // Just enough of Redis pub/sub: SUBSCRIBE and PUBLISH on one channel
+    private static final class BrokerStandIn implements AutoCloseable {
+        private final ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+        private final Set<OutputStream> subscribers = ConcurrentHashMap.newKeySet();
+
+        BrokerStandIn() throws IOException {
+            Thread.ofPlatform().daemon().start(() -> {
+                while (!server.isClosed()) {
+                    try {
+                        Socket socket = server.accept();
+                        connections.add(socket);
+                        Thread.ofPlatform().daemon().start(() -> serve(socket));
+                    } catch (IOException e) {
+                        return;
+                    }
+                }
+            });
+        }
+
+        int port() {
+            return server.getLocalPort();
+        }
+
+        void awaitSubscribers(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (subscribers.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(subscribers).hasSize(count);
+        }
+
+        void dropAll() throws IOException {
+            subscribers.clear();
+            for (Socket socket : connections) {
+                socket.close();
+            }
+            connections.clear();
+        }
+
+        private void serve(Socket socket) {
+            try (socket) {
+                InputStream in = new BufferedInputStream(socket.getInputStream());
+                OutputStream out = socket.getOutputStream();
+                while (true) {
+                    List<byte[]> command = readCommand(in);
+                    String name = new String(command.get(0), StandardCharsets.US_ASCII);
+                    if ("SUBSCRIBE".equals(name)) {
+                        synchronized (out) {
+                            out.write(("*3\r\n$9\r\nsubscribe\r\n" + bulk(command.get(1)) + ":1\r\n")
+                                    .getBytes(StandardCharsets.ISO_8859_1));
+                        }
+                        subscribers.add(out);
+                    } else if ("PUBLISH".equals(name)) {
+                        String message = "*3\r\n$7\r\nmessage\r\n" + bulk(command.get(1)) + bulk(command.get(2));
+                        int delivered = 0;
+                        for (OutputStream subscriber : subscribers) {
+                            synchronized (subscriber) {
+                                subscriber.write(message.getBytes(StandardCharsets.ISO_8859_1));
+                            }
+                            delivered++;
+                        }
+                        out.write((":" + delivered + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                    }
+                }
+            } catch (IOException e) {
+                // Client gone
+            }
+        }
+
+        private static List<byte[]> readCommand(InputStream in) throws IOException {
+            int count = Integer.parseInt(readLine(in).substring(1));
+            List<byte[]> args = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                int length = Integer.parseInt(readLine(in).substring(1));
+                args.add(in.readNBytes(length));
+                readLine(in);
+            }
+            return args;
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            StringBuilder line = new StringBuilder();
+            for (int b; (b = in.read()) != '\r';) {
+                if (b == -1) {
+                    throw new IOException("closed");
+                }
+                line.append((char) b);
+            }
+            in.read();
+            return line.toString();
+        }
+
+        private static String bulk(byte[] data) {
+            return "$" + data.length + "\r\n" + new String(data, StandardCharsets.ISO_8859_1) + "\r\n";
+        }
+
+        @Override
+        public void close() throws IOException {
+            server.close();
+            dropAll();
+        }
+    }
+}
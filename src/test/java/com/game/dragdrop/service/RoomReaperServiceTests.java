@@ -0,0 +1,126 @@
+package com.game.dragdrop.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.game.dragdrop.model.GameLevel;
+import com.game.dragdrop.model.GamePlayer;
+import com.game.dragdrop.model.GameRoom;
+import com.game.dragdrop.model.RoomArchive;
+import com.game.dragdrop.model.StoredFile;
+import com.game.dragdrop.repository.LevelRepository;
+import com.game.dragdrop.repository.PlayerRepository;
+import com.game.dragdrop.repository.RoomArchiveRepository;
+import com.game.dragdrop.repository.RoomRepository;
+import com.game.dragdrop.repository.StoredFileRepository;
+
+@SpringBootTest
+class RoomReaperServiceTests {
+
+    @Autowired
+    private RoomReaperService roomReaperService;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private PlayerRepository playerRepository;
+
+    @Autowired
+    private RoomArchiveRepository roomArchiveRepository;
+
+    @Autowired
+    private LevelRepository levelRepository;
+
+    @Autowired
+    private StoredFileRepository storedFileRepository;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Test
+    void oldRoomsAreCompactedAndRecentOnesKept() {
+        LocalDateTime old = LocalDateTime.now().minusDays(3);
+        GameRoom finished = room("reaper-finished", "FINISHED", old);
+        GamePlayer alice = player("alice", finished, 70, old);
+        player("bob", finished, 90, old);
+        player("carol", finished, 90, old.plusMinutes(1));
+        GameRoom idle = room("reaper-idle", "PLAYING", old);
+        GameRoom recent = room("reaper-recent", "FINISHED", LocalDateTime.now());
+        GameRoom rejoined = room("reaper-rejoined", "WAITING", old);
+        player("dave", rejoined, 0, LocalDateTime.now());
+
+        roomReaperService.reap();
+
+        assertThat(roomRepository.findAllById(List.of(finished.getId(), idle.getId()))).isEmpty();
+        assertThat(playerRepository.findById(alice.getId())).isEmpty();
+        assertThat(roomRepository.findById(recent.getId())).isPresent();
+        assertThat(roomRepository.findById(rejoined.getId())).isPresent();
+
+        RoomArchive archive = roomArchiveRepository.findById(finished.getId()).orElseThrow();
+        assertThat(archive.getReason()).isEqualTo("finished");
+        assertThat(archive.getPlayerCount()).isEqualTo(3);
+        assertThat(archive.getFinishedCount()).isEqualTo(3);
+        assertThat(archive.getTopScore()).isEqualTo(90);
+        assertThat(archive.getAverageScore()).isEqualTo(250.0 / 3);
+        assertThat(archive.getWinnerName()).isEqualTo("bob");
+
+        RoomArchive idleArchive = roomArchiveRepository.findById(idle.getId()).orElseThrow();
+        assertThat(idleArchive.getReason()).isEqualTo("idle");
+        assertThat(idleArchive.getPlayerCount()).isZero();
+    }
+
+    @Test
+    void reapedRoomsReleaseTheirLevelsAndImages() {
+        LocalDateTime old = LocalDateTime.now().minusDays(3);
+        GameRoom reaped = room("reaper-levels", "FINISHED", old);
+        GameRoom kept = room("reaper-levels-kept", "WAITING", LocalDateTime.now());
+        byte[] content = "reaped room image".getBytes(StandardCharsets.UTF_8);
+        String url = storageService.uploadFile(new ByteArrayInputStream(content), content.length, "reaped.png",
+                "image/png");
+        GameLevel reapedLevel = level(reaped, url);
+        GameLevel keptLevel = level(kept, storageService.retain(url));
+
+        roomReaperService.reap();
+
+        assertThat(levelRepository.findById(reapedLevel.getId())).isEmpty();
+        assertThat(levelRepository.findById(keptLevel.getId())).isPresent();
+        String hash = url.substring(url.lastIndexOf('/') + 1, url.lastIndexOf('.'));
+        assertThat(storedFileRepository.findById(hash)).map(StoredFile::getRefCount).hasValue(1);
+
+        levelRepository.delete(keptLevel);
+        storageService.deleteFile(url);
+    }
+
+    private GameLevel level(GameRoom room, String imageUrl) {
+        GameLevel level = new GameLevel();
+        level.setImageUrl(imageUrl);
+        level.setAnswer("AB");
+        level.setOptions(GameLevel.optionsFor("AB"));
+        level.setRoomId(room.getId());
+        return levelRepository.save(level);
+    }
+
+    private GameRoom room(String name, String status, LocalDateTime createdAt) {
+        GameRoom room = new GameRoom(name);
+        room.setStatus(status);
+        room.setCreatedAt(createdAt);
+        return roomRepository.save(room);
+    }
+
+    private GamePlayer player(String name, GameRoom room, int score, LocalDateTime joinedAt) {
+        GamePlayer player = new GamePlayer(name, room.getId());
+        player.setScore(score);
+        player.setFinished("FINISHED".equals(room.getStatus()));
+        player.setJoinedAt(joinedAt);
+        return playerRepository.save(player);
+    }
+}
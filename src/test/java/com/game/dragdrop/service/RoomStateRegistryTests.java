@@ -0,0 +1,36 @@
+package com.game.dragdrop.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.game.dragdrop.controller.RoomController;
+import com.game.dragdrop.model.GamePlayer;
+
+@SpringBootTest
+class RoomStateRegistryTests {
+
+    @Autowired
+    private RoomStateRegistry roomStateRegistry;
+
+    @Autowired
+    private RoomController roomController;
+
+    @Test
+    void finishedRoomsAreReadThroughWithoutBeingCachedAgain() {
+        Long roomId = roomController.createRoom("done", null).getId();
+        Long playerId = ((Number) roomController.joinRoom(roomId, "last").getBody().get("playerId")).longValue();
+        roomController.finishGame(roomId, playerId);
+
+        // Persisted and evicted by the flush; peekJoin only answers for rooms in memory
+        roomStateRegistry.flush();
+        assertThat(roomStateRegistry.peekJoin(roomId, "last")).isNull();
+
+        assertThat(roomStateRegistry.getStatus(roomId)).isEqualTo("FINISHED");
+        assertThat(roomStateRegistry.getPlayers(roomId)).extracting(GamePlayer::isFinished).containsExactly(true);
+        assertThat(roomStateRegistry.hasPlayer(roomId, playerId)).isTrue();
+        assertThat(roomStateRegistry.peekJoin(roomId, "last")).isNull();
+    }
+}
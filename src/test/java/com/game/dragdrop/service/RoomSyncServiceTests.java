@@ -0,0 +1,54 @@
+package com.game.dragdrop.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.game.dragdrop.controller.RoomController;
+import com.game.dragdrop.model.GamePlayer;
+import com.game.dragdrop.model.GameRoom;
+import com.game.dragdrop.repository.RoomRepository;
+
+@SpringBootTest
+class RoomSyncServiceTests {
+
+    private static final String OTHER_NODE = "other-node";
+
+    @Autowired
+    private RoomController roomController;
+
+    @Autowired
+    private RoomEventBus roomEventBus;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Test
+    void changesFromAnotherNodeUpdateTheLocalViewWithoutTheDatabase() {
+        GameRoom room = roomController.createRoom("sync", null);
+        Long roomId = room.getId();
+
+        GamePlayer remotePlayer = new GamePlayer("remote", roomId);
+        remotePlayer.setId(9_000L);
+        roomEventBus.publish(RoomEvent.playerJoined(remotePlayer).withOrigin(OTHER_NODE));
+        roomEventBus.publish(RoomEvent.status(roomId, "PLAYING").withOrigin(OTHER_NODE));
+
+        assertThat(roomController.getRoomStatus(roomId)).containsEntry("status", "PLAYING");
+        assertThat(roomController.getPlayers(roomId)).extracting(GamePlayer::getName).containsExactly("remote");
+        assertThat(roomController.getLeaderboard(roomId)).extracting(LeaderboardService.Standing::name)
+                .containsExactly("remote");
+        // Only the originating node writes
+        assertThat(roomRepository.findById(roomId).orElseThrow().getStatus()).isEqualTo("WAITING");
+
+        // The last remote finish closes the room here too, and is replayed harmlessly
+        remotePlayer.setFinished(true);
+        remotePlayer.setScore(300);
+        roomEventBus.publish(RoomEvent.playerFinished(remotePlayer).withOrigin(OTHER_NODE));
+        roomEventBus.publish(RoomEvent.playerFinished(remotePlayer).withOrigin(OTHER_NODE));
+
+        assertThat(roomController.getRoomStatus(roomId)).containsEntry("status", "FINISHED");
+        assertThat(roomController.getLeaderboard(roomId).get(0).score()).isEqualTo(300);
+    }
+}
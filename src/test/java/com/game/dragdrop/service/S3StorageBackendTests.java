@@ -0,0 +1,100 @@
+package com.game.dragdrop.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// Runs the S3 backend against a minimal in-process object store stand-in
+class S3StorageBackendTests {
+
+    private HttpServer server;
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final List<String> authorizations = new CopyOnWriteArrayList<>();
+    private S3StorageBackend backend;
+
+    @BeforeEach
+    void startStandIn() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+        backend = new S3StorageBackend("http://127.0.0.1:" + server.getAddress().getPort(), "uploads",
+                "us-east-1", "test-access", "test-secret");
+    }
+
+    @AfterEach
+    void stopStandIn() {
+        server.stop(0);
+    }
+
+    @Test
+    void storesFetchesAndDeletesObjects() throws Exception {
+        Path source = Files.createTempFile("s3-test-", ".png");
+        Files.writeString(source, "image bytes");
+
+        backend.store("ab/cd/abcd.png", source, "image/png");
+
+        assertThat(objects).containsKey("/uploads/ab/cd/abcd.png");
+        assertThat(source).doesNotExist();
+        assertThat(authorizations).allSatisfy(header -> assertThat(header)
+                .startsWith("AWS4-HMAC-SHA256 Credential=test-access/")
+                .contains("SignedHeaders=host;x-amz-content-sha256;x-amz-date"));
+
+        try (StoredObject object = backend.fetch("ab/cd/abcd.png").orElseThrow();
+                InputStream in = Channels.newInputStream(object.channel())) {
+            assertThat(object.size()).isEqualTo(11);
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("image bytes");
+        }
+
+        backend.delete("ab/cd/abcd.png");
+        assertThat(objects).isEmpty();
+        assertThat(backend.fetch("ab/cd/abcd.png")).isEmpty();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+        String path = exchange.getRequestURI().getPath();
+        switch (exchange.getRequestMethod()) {
+            case "PUT" -> {
+                try (InputStream in = exchange.getRequestBody()) {
+                    objects.put(path, in.readAllBytes());
+                }
+                exchange.sendResponseHeaders(200, -1);
+            }
+            case "GET" -> {
+                byte[] body = objects.get(path);
+                if (body == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                } else {
+                    exchange.sendResponseHeaders(200, body.length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(body);
+                    }
+                }
+            }
+            case "DELETE" -> {
+                objects.remove(path);
+                exchange.sendResponseHeaders(204, -1);
+            }
+            default -> exchange.sendResponseHeaders(405, -1);
+        }
+        exchange.close();
+    }
+}
@@ -0,0 +1,102 @@
+package com.game.dragdrop.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import com.game.dragdrop.model.StoredFile;
+import com.game.dragdrop.repository.StoredFileRepository;
+
+@SpringBootTest
+class StorageServiceTests {
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private StoredFileRepository storedFileRepository;
+
+    @MockitoSpyBean
+    private StorageBackend storageBackend;
+
+    @Value("${upload.dir}")
+    private String uploadDir;
+
+    @Test
+    void fileGoesAwayWithItsLastReference() throws Exception {
+        byte[] content = "shared image bytes".getBytes(StandardCharsets.UTF_8);
+        String url = upload(content);
+        assertThat(upload(content)).isEqualTo(url);
+        assertThat(storageService.retain(url)).isEqualTo(url);
+
+        String hash = url.substring(url.lastIndexOf('/') + 1, url.lastIndexOf('.'));
+        Path file = Path.of(uploadDir, url.replace("/uploads/", ""));
+        assertThat(storedFileRepository.findById(hash)).map(StoredFile::getRefCount).hasValue(3);
+
+        storageService.deleteFile(url);
+        storageService.deleteFile(url);
+        assertThat(storedFileRepository.findById(hash)).map(StoredFile::getRefCount).hasValue(1);
+        assertThat(file).exists();
+
+        storageService.deleteFile(url);
+        assertThat(storedFileRepository.findById(hash)).isEmpty();
+        assertThat(file).doesNotExist();
+
+        // Stored afresh after the last reference went
+        assertThat(upload(content)).isEqualTo(url);
+        assertThat(file).exists();
+        storageService.deleteFile(url);
+    }
+
+    @Test
+    void racingUploadsOfTheSameContentBothCount() throws Exception {
+        // Both uploads find no row; the later one stores its file only after the
+        // earlier one has inserted the row
+        CountDownLatch bothStoring = new CountDownLatch(2);
+        CountDownLatch firstDone = new CountDownLatch(1);
+        AtomicInteger arrivals = new AtomicInteger();
+        doAnswer(invocation -> {
+            boolean later = arrivals.incrementAndGet() == 2;
+            bothStoring.countDown();
+            bothStoring.await(5, TimeUnit.SECONDS);
+            if (later) {
+                firstDone.await(5, TimeUnit.SECONDS);
+            }
+            return invocation.callRealMethod();
+        }).when(storageBackend).store(anyString(), any(Path.class), anyString());
+
+        byte[] content = "raced image bytes".getBytes(StandardCharsets.UTF_8);
+        CompletableFuture<String> one = CompletableFuture.supplyAsync(() -> upload(content));
+        CompletableFuture<String> other = CompletableFuture.supplyAsync(() -> upload(content));
+        String url = CompletableFuture.anyOf(one, other).thenApply(String.class::cast).get(10, TimeUnit.SECONDS);
+        firstDone.countDown();
+        assertThat(one.get(10, TimeUnit.SECONDS)).isEqualTo(url);
+        assertThat(other.get(10, TimeUnit.SECONDS)).isEqualTo(url);
+
+        String hash = url.substring(url.lastIndexOf('/') + 1, url.lastIndexOf('.'));
+        assertThat(storedFileRepository.findById(hash)).map(StoredFile::getRefCount).hasValue(2);
+        storageService.deleteFile(url);
+        assertThat(Path.of(uploadDir, url.replace("/uploads/", ""))).exists();
+        storageService.deleteFile(url);
+    }
+
+    private String upload(byte[] content) {
+        return storageService.uploadFile(new ByteArrayInputStream(content), content.length, "shared.png", "image/png");
+    }
+}
@@ -0,0 +1,52 @@
+package com.game.dragdrop.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTests {
+
+    @Test
+    void timeoutsFireNoEarlierThanScheduledAndCancelledOnesNever() throws Exception {
+        int count = 400;
+        long[] scheduledAt = new long[count];
+        long[] delays = new long[count];
+        ConcurrentHashMap<Integer, Long> firedAt = new ConcurrentHashMap<>();
+        CountDownLatch kept = new CountDownLatch(count / 2);
+        List<TimingWheel.Timeout> timeouts = new ArrayList<>();
+
+        // 10 ms ticks: delays up to 1.6 s span the first two levels of the wheel
+        try (TimingWheel wheel = new TimingWheel("test-wheel", 10, TimeUnit.MILLISECONDS)) {
+            for (int i = 0; i < count; i++) {
+                int id = i;
+                // The ones cancelled below are due well after scheduling all of them, so none has fired yet
+                delays[i] = (i * 37L) % 1_600 + (i % 2 == 1 ? 2_000 : 0);
+                scheduledAt[i] = System.nanoTime();
+                timeouts.add(wheel.schedule(() -> {
+                    firedAt.put(id, System.nanoTime());
+                    kept.countDown();
+                }, delays[i], TimeUnit.MILLISECONDS));
+            }
+            for (int i = 1; i < count; i += 2) {
+                assertThat(timeouts.get(i).cancel()).isTrue();
+            }
+
+            assertThat(kept.await(5, TimeUnit.SECONDS)).isTrue();
+            Thread.sleep(100);
+            assertThat(wheel.pending()).isZero();
+        }
+
+        assertThat(firedAt).hasSize(count / 2);
+        for (int i = 0; i < count; i += 2) {
+            long waited = TimeUnit.NANOSECONDS.toMillis(firedAt.get(i) - scheduledAt[i]);
+            assertThat(waited).isBetween(delays[i], delays[i] + 500);
+        }
+        assertThat(timeouts.get(0).cancel()).isFalse();
+    }
+}